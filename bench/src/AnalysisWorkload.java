@@ -0,0 +1,66 @@
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import benchmarks.Workload;
+
+// Implémentation des étapes mesurées sur un graphe synthétique
+public class AnalysisWorkload implements Workload {
+    private List<File> sourceFiles;
+    private CompactCallGraph callGraph;
+    private WeightedCouplingGraph weightedCouplingGraph;
+
+    @Override
+    public void setUp(int classes, int methodsPerClass, int callsPerMethod, long seed, String sourceDirectory) throws Exception {
+        SyntheticCallGraph generator = new SyntheticCallGraph(classes, methodsPerClass, callsPerMethod, seed);
+
+        Map<String, List<String>> rawCallGraph = new HashMap<>();
+        Map<String, String> methodToClassMap = new HashMap<>();
+        generator.generate(rawCallGraph, methodToClassMap);
+        callGraph = new CompactCallGraph(rawCallGraph, methodToClassMap);
+        weightedCouplingGraph = new CouplingCalculator(callGraph).calculateWeightedCoupling();
+
+        if (sourceDirectory != null) {
+            File directory = new File(sourceDirectory);
+            directory.mkdirs();
+            sourceFiles = generator.writeSources(directory);
+            Parser.setEnvironment(new String[0], new String[] { directory.getPath() });
+        }
+
+        // Les autres affichages ne doivent pas être mesurés (les étapes du clustering ne sont pas tracées)
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Override
+    public Object parse() throws Exception {
+        Map<String, List<String>> rawCallGraph = new HashMap<>();
+        Map<String, String> methodToClassMap = new HashMap<>();
+        Parser.buildCallGraph(sourceFiles, rawCallGraph, methodToClassMap, new CouplingLayers(), 1);
+        return rawCallGraph;
+    }
+
+    @Override
+    public Object calculateWeightedCoupling() {
+        return new CouplingCalculator(callGraph).calculateWeightedCoupling();
+    }
+
+    @Override
+    public Object performClustering() {
+        HierarchicalClustering clustering = new HierarchicalClustering(weightedCouplingGraph);
+        clustering.setTrace(false, null);
+        clustering.performClustering();
+        return clustering;
+    }
+
+    @Override
+    public Object identifyModules() {
+        ModuleIdentifier moduleIdentifier = new ModuleIdentifier(weightedCouplingGraph, weightedCouplingGraph.sourceCount(), 1);
+        moduleIdentifier.setTrace(false, null);
+        moduleIdentifier.identifyModules();
+        return moduleIdentifier;
+    }
+}
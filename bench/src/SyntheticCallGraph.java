@@ -0,0 +1,84 @@
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+
+// Générateur de graphes d'appels synthétiques pour les benchmarks.
+// Les classes sont regroupées par paquets de GROUP_SIZE : un appel vise une classe du même groupe
+// avec la probabilité LOCALITY, ce qui donne une structure modulaire réaliste au clustering.
+public class SyntheticCallGraph {
+    private static final int GROUP_SIZE = 10;
+    private static final double LOCALITY = 0.8;
+
+    private final int classes;
+    private final int methodsPerClass;
+    private final int callsPerMethod;
+    private final long seed;
+
+    public SyntheticCallGraph(int classes, int methodsPerClass, int callsPerMethod, long seed) {
+        this.classes = classes;
+        this.methodsPerClass = methodsPerClass;
+        this.callsPerMethod = callsPerMethod;
+        this.seed = seed;
+    }
+
+    // Remplir le graphe d'appels et l'association méthode-classe, comme le fait Parser
+    public void generate(Map<String, List<String>> callGraph, Map<String, String> methodToClassMap) {
+        Random random = new Random(seed);
+        for (int c = 0; c < classes; c++) {
+            for (int m = 0; m < methodsPerClass; m++) {
+                String methodName = className(c) + "." + methodName(m);
+                methodToClassMap.put(methodName, className(c));
+                List<String> calledMethods = new ArrayList<>(callsPerMethod);
+                for (int k = 0; k < callsPerMethod; k++) {
+                    calledMethods.add(className(calledClass(random, c)) + "." + methodName(random.nextInt(methodsPerClass)));
+                }
+                callGraph.put(methodName, calledMethods);
+            }
+        }
+    }
+
+    // Écrire le même graphe sous forme de sources Java (une classe par fichier, appels statiques)
+    public List<File> writeSources(File directory) throws IOException {
+        Random random = new Random(seed);
+        List<File> files = new ArrayList<>(classes);
+        for (int c = 0; c < classes; c++) {
+            StringBuilder source = new StringBuilder();
+            source.append("public class ").append(className(c)).append(" {\n");
+            for (int m = 0; m < methodsPerClass; m++) {
+                source.append("    public static void ").append(methodName(m)).append("() {\n");
+                for (int k = 0; k < callsPerMethod; k++) {
+                    source.append("        ").append(className(calledClass(random, c))).append('.')
+                            .append(methodName(random.nextInt(methodsPerClass))).append("();\n");
+                }
+                source.append("    }\n");
+            }
+            source.append("}\n");
+            File file = new File(directory, className(c) + ".java");
+            FileUtils.writeStringToFile(file, source.toString(), "UTF-8");
+            files.add(file);
+        }
+        return files;
+    }
+
+    private int calledClass(Random random, int callingClass) {
+        if (random.nextDouble() < LOCALITY) {
+            int groupStart = callingClass - callingClass % GROUP_SIZE;
+            return Math.min(classes - 1, groupStart + random.nextInt(GROUP_SIZE));
+        }
+        return random.nextInt(classes);
+    }
+
+    private static String className(int c) {
+        return "Class" + c;
+    }
+
+    private static String methodName(int m) {
+        return "method" + m;
+    }
+}
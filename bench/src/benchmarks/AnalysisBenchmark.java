@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Couplage pondéré, clustering hiérarchique et identification de modules sur un graphe synthétique
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisBenchmark {
+
+    @Param({ "100", "1000" })
+    public int classes;
+
+    @Param({ "10" })
+    public int methodsPerClass;
+
+    @Param({ "5" })
+    public int callsPerMethod;
+
+    private Workload workload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workload = Workloads.create();
+        workload.setUp(classes, methodsPerClass, callsPerMethod, 42L, null);
+    }
+
+    @Benchmark
+    public Object calculateWeightedCoupling() {
+        return workload.calculateWeightedCoupling();
+    }
+
+    @Benchmark
+    public Object performClustering() {
+        return workload.performClustering();
+    }
+
+    @Benchmark
+    public Object identifyModules() {
+        return workload.identifyModules();
+    }
+}
@@ -0,0 +1,60 @@
+package benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.apache.commons.io.FileUtils;
+
+// Parsing JDT et construction du graphe d'appels sur des sources synthétiques
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({ "50", "200" })
+    public int classes;
+
+    @Param({ "10" })
+    public int methodsPerClass;
+
+    @Param({ "5" })
+    public int callsPerMethod;
+
+    private Workload workload;
+    private File sourceDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        sourceDirectory = Files.createTempDirectory("parse-benchmark").toFile();
+        workload = Workloads.create();
+        workload.setUp(classes, methodsPerClass, callsPerMethod, 42L, sourceDirectory.getPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(sourceDirectory);
+    }
+
+    @Benchmark
+    public Object parse() throws Exception {
+        return workload.parse();
+    }
+}
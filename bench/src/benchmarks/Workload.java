@@ -0,0 +1,18 @@
+package benchmarks;
+
+// Étapes mesurées de l'analyse. Les classes de l'outil sont dans le paquetage par défaut, qu'un
+// paquetage nommé ne peut pas importer : l'implémentation (AnalysisWorkload) est dans le paquetage
+// par défaut et chargée une seule fois par réflexion, hors des mesures.
+public interface Workload {
+
+    // Préparer les données synthétiques ; sourceDirectory reçoit les sources générées pour le parsing
+    void setUp(int classes, int methodsPerClass, int callsPerMethod, long seed, String sourceDirectory) throws Exception;
+
+    Object parse() throws Exception;
+
+    Object calculateWeightedCoupling();
+
+    Object performClustering();
+
+    Object identifyModules();
+}
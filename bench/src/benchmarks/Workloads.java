@@ -0,0 +1,12 @@
+package benchmarks;
+
+// Chargement de l'implémentation des étapes, qui vit dans le paquetage par défaut
+final class Workloads {
+
+    private Workloads() {
+    }
+
+    static Workload create() throws ReflectiveOperationException {
+        return (Workload) Class.forName("AnalysisWorkload").getDeclaredConstructor().newInstance();
+    }
+}
@@ -0,0 +1,353 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Démon d'analyse : le graphe d'appels, le couplage, les clusters et les modules restent en mémoire dans une
+// JVM chaude (JDT chargé et compilé par le JIT). L'arborescence des sources est surveillée (WatchService) :
+// après une rafale de modifications, seuls les fichiers modifiés et ceux dont les liaisons dépendent de leurs
+// types sont ré-analysés (cache du graphe d'appels gardé en mémoire), puis le couplage, le clustering et les
+// modules sont recalculés et le nouveau modèle remplace l'ancien d'un coup. Les requêtes HTTP (localhost
+// uniquement) lisent le modèle courant sans verrou, chacune sur un thread virtuel quand la JVM en propose
+// (JDK 21), sinon sur un pool de threads :
+//   GET /status                     état du modèle (génération, fichiers, classes, durée de la mise à jour)
+//   GET /coupling?a=<classe>&b=<classe>  couplage entre deux classes
+//   GET /module?class=<classe>      module et cluster de la classe
+//   GET /modules                    tous les modules
+public class AnalysisDaemon {
+    private static final long DEBOUNCE_MILLIS = 200; // Attente de la fin d'une rafale de modifications
+
+    private final AnalysisOptions options;
+    private final CallGraphCache cache;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private volatile Model model;
+
+    // Modèle immuable, remplacé en entier à chaque mise à jour
+    private static final class Model {
+        final int generation;
+        final int fileCount;
+        final long buildMillis;
+        final CouplingMatrix couplingMatrix;
+        final WeightedCouplingGraph couplingGraph;
+        final List<Set<String>> clusters;
+        final List<Set<String>> modules;
+        final Map<String, Integer> clusterOf = new HashMap<>(); // Classe -> indice de son cluster
+        final Map<String, Integer> moduleOf = new HashMap<>(); // Classe -> indice de son module
+
+        Model(int generation, int fileCount, long buildMillis, CouplingMatrix couplingMatrix,
+                WeightedCouplingGraph couplingGraph, Map<String, Set<String>> clusters,
+                Map<String, Set<String>> modules) {
+            this.generation = generation;
+            this.fileCount = fileCount;
+            this.buildMillis = buildMillis;
+            this.couplingMatrix = couplingMatrix;
+            this.couplingGraph = couplingGraph;
+            this.clusters = index(clusters, clusterOf);
+            this.modules = index(modules, moduleOf);
+        }
+
+        private static List<Set<String>> index(Map<String, Set<String>> groups, Map<String, Integer> groupOf) {
+            List<Set<String>> list = new ArrayList<>(groups.size());
+            for (Set<String> group : groups.values()) {
+                for (String className : group) {
+                    groupOf.put(className, list.size());
+                }
+                list.add(Collections.unmodifiableSet(group));
+            }
+            return list;
+        }
+    }
+
+    public AnalysisDaemon(AnalysisOptions options) {
+        this.options = options;
+        // Avec --cache, le démon repart du cache enregistré et l'enregistre après chaque mise à jour
+        this.cache = new CallGraphCache(options.cacheFile);
+        if (options.cacheFile != null) {
+            cache.load();
+        }
+    }
+
+    // Construire le modèle, ouvrir le serveur puis surveiller les sources jusqu'à l'arrêt de la JVM
+    public void run() throws IOException, InterruptedException {
+        update();
+        HttpServer server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), options.daemonPort), 0);
+        ExecutorService executor = requestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/status", exchange -> respond(exchange, this::status));
+        server.createContext("/coupling", exchange -> respond(exchange, this::coupling));
+        server.createContext("/module", exchange -> respond(exchange, this::module));
+        server.createContext("/modules", exchange -> respond(exchange, this::modules));
+        server.start();
+        System.out.println("Démon à l'écoute sur http://localhost:" + server.getAddress().getPort() + "/");
+
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            register(watcher, options.sourceRoot);
+            watch(watcher);
+        } catch (ClosedWatchServiceException e) {
+            // Arrêt de la JVM
+        } finally {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    // Ré-analyser les fichiers modifiés et leurs dépendants, puis recalculer couplage, clusters et modules
+    private void update() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        // Un nouvel environnement vide les méthodes résolues : aucune liaison d'une version précédente
+        Parser.setEnvironment(options.classpath, options.sourcepath);
+        List<File> javaFiles = Parser.listJavaFilesForFolder(options.sourceRoot);
+        Map<String, List<String>> callGraph = new HashMap<>();
+        Map<String, String> methodToClassMap = new HashMap<>();
+        CouplingLayers relations = new CouplingLayers();
+        Parser.buildCallGraphIncremental(javaFiles, callGraph, methodToClassMap, relations, cache, options.threads);
+        if (options.cacheFile != null) {
+            cache.save();
+        }
+
+        CouplingCalculator calculator = new CouplingCalculator(callGraph, methodToClassMap);
+        WeightedCouplingGraph couplingGraph = calculator.calculateWeightedCoupling(relations,
+                options.couplingWeights);
+        HierarchicalClustering clustering = new HierarchicalClustering(couplingGraph);
+        clustering.setParallelism(options.clusteringThreads);
+        clustering.setTrace(false, null);
+        clustering.performClustering();
+        ModuleIdentifier moduleIdentifier = new ModuleIdentifier(couplingGraph, couplingGraph.sourceCount(),
+                options.minCouplingAverage);
+        moduleIdentifier.setParallelism(options.clusteringThreads);
+        moduleIdentifier.setTrace(false, null);
+        moduleIdentifier.identifyModules();
+
+        Model previous = model;
+        long buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        model = new Model(previous == null ? 1 : previous.generation + 1, javaFiles.size(), buildMillis,
+                calculator.calculateCouplingMatrix(), couplingGraph, clustering.getClusters(),
+                moduleIdentifier.getModules());
+        System.out.println("Modèle " + model.generation + " : " + javaFiles.size() + " fichiers, "
+                + couplingGraph.sourceCount() + " classes, " + model.modules.size() + " modules (" + buildMillis
+                + " ms)");
+    }
+
+    // Attendre une modification des sources, laisser passer la rafale puis mettre le modèle à jour
+    private void watch(WatchService watcher) throws IOException, InterruptedException {
+        while (true) {
+            boolean changed = handle(watcher, watcher.take());
+            WatchKey key;
+            while ((key = watcher.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                changed |= handle(watcher, key);
+            }
+            if (changed) {
+                try {
+                    update();
+                } catch (IOException | RuntimeException e) {
+                    // Le modèle précédent reste servi jusqu'à la prochaine modification. Le cache a pu recevoir
+                    // les fichiers modifiés sans leurs dépendants : il est vidé, la prochaine mise à jour
+                    // ré-analyse tout
+                    cache.clear();
+                    System.err.println("Mise à jour impossible : " + e);
+                }
+            }
+        }
+    }
+
+    // Vrai si un fichier java ou un dossier a changé ; les nouveaux dossiers sont surveillés à leur tour
+    private boolean handle(WatchService watcher, WatchKey key) throws IOException {
+        Path directory = watchedDirectories.get(key);
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                changed = true; // Événements perdus : tout revérifier
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            File file = path.toFile();
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && file.isDirectory()) {
+                register(watcher, file);
+                changed = true;
+            } else if (file.getName().endsWith(".java") || file.isDirectory()
+                    || event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                changed = true;
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key); // Dossier supprimé
+        }
+        return changed;
+    }
+
+    private void register(WatchService watcher, File directory) throws IOException {
+        WatchKey key = directory.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watchedDirectories.put(key, directory.toPath());
+        File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    register(watcher, child);
+                }
+            }
+        }
+    }
+
+    // Requêtes
+
+    private interface Query {
+        // Écrire la réponse JSON ; retourner le code HTTP
+        int answer(Model model, Map<String, String> parameters, Writer json) throws IOException;
+    }
+
+    private void respond(HttpExchange exchange, Query query) throws IOException {
+        StringWriter json = new StringWriter();
+        int status;
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                status = error(json, 405, "Méthode non acceptée : " + exchange.getRequestMethod());
+            } else {
+                status = query.answer(model, parameters(exchange.getRequestURI().getRawQuery()), json);
+            }
+        } catch (RuntimeException e) {
+            json.getBuffer().setLength(0);
+            status = error(json, 500, e.toString());
+        }
+        byte[] body = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private int status(Model model, Map<String, String> parameters, Writer json) throws IOException {
+        json.write("{\"generation\": " + model.generation + ", \"files\": " + model.fileCount + ", \"classes\": "
+                + model.couplingGraph.sourceCount() + ", \"couplingEdges\": " + model.couplingGraph.edgeCount()
+                + ", \"clusters\": " + model.clusters.size() + ", \"modules\": " + model.modules.size()
+                + ", \"buildMillis\": " + model.buildMillis + "}");
+        return 200;
+    }
+
+    private int coupling(Model model, Map<String, String> parameters, Writer json) throws IOException {
+        String classA = parameters.get("a");
+        String classB = parameters.get("b");
+        if (classA == null || classB == null) {
+            return error(json, 400, "Paramètres a et b requis");
+        }
+        Symbols classes = model.couplingGraph.getClasses();
+        int a = classes.idOf(classA);
+        int b = classes.idOf(classB);
+        if (a < 0 || b < 0) {
+            return error(json, 404, "Classe inconnue : " + (a < 0 ? classA : classB));
+        }
+        json.write("{\"a\": ");
+        GraphExporter.writeJsonString(json, classA);
+        json.write(", \"b\": ");
+        GraphExporter.writeJsonString(json, classB);
+        json.write(", \"coupling\": " + model.couplingMatrix.getCoupling(classA, classB));
+        json.write(", \"relations\": " + model.couplingMatrix.getRelationCount(classA, classB));
+        json.write(", \"weight\": " + model.couplingGraph.symmetricWeight(a, b) + "}");
+        return 200;
+    }
+
+    private int module(Model model, Map<String, String> parameters, Writer json) throws IOException {
+        String className = parameters.get("class");
+        if (className == null) {
+            return error(json, 400, "Paramètre class requis");
+        }
+        Integer module = model.moduleOf.get(className);
+        if (module == null) {
+            return error(json, 404, "Classe inconnue : " + className);
+        }
+        json.write("{\"class\": ");
+        GraphExporter.writeJsonString(json, className);
+        json.write(", \"module\": " + (module + 1) + ", \"cluster\": " + (model.clusterOf.get(className) + 1));
+        json.write(", \"members\": ");
+        writeJsonArray(json, model.modules.get(module));
+        json.write("}");
+        return 200;
+    }
+
+    private int modules(Model model, Map<String, String> parameters, Writer json) throws IOException {
+        json.write("{\"generation\": " + model.generation + ", \"modules\": [");
+        for (int module = 0; module < model.modules.size(); module++) {
+            json.write(module == 0 ? "\n  " : ",\n  ");
+            writeJsonArray(json, model.modules.get(module));
+        }
+        json.write("\n]}");
+        return 200;
+    }
+
+    private static int error(Writer json, int status, String message) {
+        try {
+            json.write("{\"error\": ");
+            GraphExporter.writeJsonString(json, message);
+            json.write("}");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return status;
+    }
+
+    private static void writeJsonArray(Writer json, Set<String> values) throws IOException {
+        json.write("[");
+        boolean first = true;
+        for (String value : values) {
+            json.write(first ? "" : ", ");
+            GraphExporter.writeJsonString(json, value);
+            first = false;
+        }
+        json.write("]");
+    }
+
+    private static Map<String, String> parameters(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    // Un thread virtuel par requête (JDK 21, appelé par réflexion : le projet compile pour Java 17),
+    // sinon un pool de threads démons
+    private static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "daemon-request");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
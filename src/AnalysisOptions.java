@@ -0,0 +1,221 @@
+
+import java.io.File;
+
+// Paramètres d'une exécution de l'analyse : sources, environnement JDT, sorties et réglages de performance
+public class AnalysisOptions {
+    public File sourceRoot;
+    public String[] sourcepath; // Racines des sources pour la résolution des liaisons (défaut : sourceRoot)
+    public String[] classpath = new String[0]; // Jars et dossiers de classes (JRE compris)
+    public File outputDirectory = new File(".");
+    public int threads = Runtime.getRuntime().availableProcessors();
+    public boolean batch;
+    public File cacheFile;
+    public boolean streaming; // Graphe d'appels agrégé au fil de l'analyse, mémoire bornée
+    public boolean bytecode; // Analyser les .class et jars de la racine plutôt que les sources
+    public boolean fromSnapshot; // La racine est un instantané des graphes (GraphSnapshot) : pas d'analyse
+    public File snapshotFile; // Instantané des graphes à écrire (null : aucun)
+    public int clusteringThreads = 1;
+    public double minCouplingAverage = 1; // CP de l'identification de modules
+    public int[] couplingWeights = CouplingLayers.defaultWeights(); // Poids des couches du couplage, par CouplingLayers.Kind
+    public GraphExporter.Format exportFormat = GraphExporter.Format.DOT;
+    public int minEdgeWeight = 1; // Arcs plus légers omis à l'export
+    public int topEdgesPerClass; // 0 : tous les arcs de chaque classe
+    public boolean collapsePackages;
+    public int layoutIterations = 200; // Itérations de la disposition du graphe dessiné
+    public File metricsFile; // Mesures de l'exécution en JSON (null : pas de fichier)
+    public boolean quiet; // N'afficher ni le graphe d'appels ni les étapes du clustering
+    public File traceFile; // Étapes du clustering et de l'identification de modules (null : pas de fichier)
+    public File dendrogramFile; // Dendrogramme du clustering, à recouper sans refaire l'analyse (null : aucun)
+    public int daemonPort = -1; // Port HTTP local du démon d'analyse (-1 : analyse unique, 0 : port libre)
+    public String classA;
+    public String classB;
+    public boolean showGui;
+
+    public static final String USAGE =
+            "Usage : java -jar tp2-architecture.jar <racine des sources> [options]\n"
+            + "  --classpath <chemins>        jars et dossiers pour la résolution des liaisons (séparés par '"
+            + File.pathSeparator + "')\n"
+            + "  --sourcepath <chemins>       racines des sources (défaut : la racine analysée)\n"
+            + "  --output <dossier>           dossier des fichiers générés (défaut : .)\n"
+            + "  --threads <n>                threads d'analyse (défaut : nombre de coeurs)\n"
+            + "  --batch                      parsing par lots avec ASTParser.createASTs\n"
+            + "  --cache <fichier>            analyse incrémentale avec cache persistant\n"
+            + "  --streaming                  graphe d'appels agrégé au fil de l'analyse, mémoire bornée\n"
+            + "  --bytecode                   analyser les .class et jars de la racine (dossier ou jar)\n"
+            + "  --from-snapshot              la racine est un instantané des graphes, ouvert sans analyse\n"
+            + "  --snapshot <fichier>         écrire un instantané binaire des graphes d'appels et de couplage\n"
+            + "  --clustering-threads <n>     threads de la recherche de paires du clustering (défaut : 1)\n"
+            + "  --cp <valeur>                couplage moyen minimum par module (défaut : 1)\n"
+            + "  --weights <type=poids,...>   poids des relations : call, super, field, type, inherit\n"
+            + "                               (défaut : call=1, les autres à 0)\n"
+            + "  --format <dot|graphml|json>  format du graphe exporté (défaut : dot)\n"
+            + "  --min-weight <n>             poids minimum des arcs exportés (défaut : 1)\n"
+            + "  --top-k <n>                  n arcs les plus lourds par classe à l'export (défaut : tous)\n"
+            + "  --collapse-packages          exporter le couplage entre paquetages plutôt qu'entre classes\n"
+            + "  --layout-iterations <n>      itérations de la disposition du graphe dessiné (défaut : 200)\n"
+            + "  --metrics <fichier>          écrire les mesures (temps, CPU, allocations par étape) en JSON\n"
+            + "  --quiet                      ne pas afficher le graphe d'appels ni les étapes du clustering\n"
+            + "  --trace <fichier>            écrire les étapes du clustering (une fusion par ligne)\n"
+            + "  --dendrogram <fichier>       enregistrer le dendrogramme du clustering (coupes : classe Dendrogram)\n"
+            + "  --daemon <port>              démon : modèle gardé en mémoire, sources surveillées, requêtes HTTP\n"
+            + "                               sur localhost (/status, /coupling?a=&b=, /module?class=, /modules)\n"
+            + "  --coupling <classeA> <classeB>  afficher le couplage entre deux classes\n"
+            + "  --gui                        afficher le graphe dans une fenêtre à la fin\n";
+
+    // Lire les options de la ligne de commande ; IllegalArgumentException si elles sont invalides
+    public static AnalysisOptions parse(String[] args) {
+        AnalysisOptions options = new AnalysisOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+            case "--classpath":
+                options.classpath = splitPath(value(args, ++i, arg));
+                break;
+            case "--sourcepath":
+                options.sourcepath = splitPath(value(args, ++i, arg));
+                break;
+            case "--output":
+                options.outputDirectory = new File(value(args, ++i, arg));
+                break;
+            case "--threads":
+                options.threads = intValue(args, ++i, arg, 1);
+                break;
+            case "--batch":
+                options.batch = true;
+                break;
+            case "--cache":
+                options.cacheFile = new File(value(args, ++i, arg));
+                break;
+            case "--streaming":
+                options.streaming = true;
+                break;
+            case "--bytecode":
+                options.bytecode = true;
+                break;
+            case "--from-snapshot":
+                options.fromSnapshot = true;
+                break;
+            case "--snapshot":
+                options.snapshotFile = new File(value(args, ++i, arg));
+                break;
+            case "--clustering-threads":
+                options.clusteringThreads = intValue(args, ++i, arg, 1);
+                break;
+            case "--cp":
+                try {
+                    options.minCouplingAverage = Double.parseDouble(value(args, ++i, arg));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Valeur invalide pour --cp : " + args[i]);
+                }
+                break;
+            case "--weights":
+                options.couplingWeights = CouplingLayers.parseWeights(value(args, ++i, arg));
+                break;
+            case "--format":
+                try {
+                    options.exportFormat = GraphExporter.Format.valueOf(value(args, ++i, arg).toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Valeur invalide pour --format : " + args[i]);
+                }
+                break;
+            case "--min-weight":
+                options.minEdgeWeight = intValue(args, ++i, arg, 0);
+                break;
+            case "--top-k":
+                options.topEdgesPerClass = intValue(args, ++i, arg, 0);
+                break;
+            case "--collapse-packages":
+                options.collapsePackages = true;
+                break;
+            case "--layout-iterations":
+                options.layoutIterations = intValue(args, ++i, arg, 0);
+                break;
+            case "--metrics":
+                options.metricsFile = new File(value(args, ++i, arg));
+                break;
+            case "--quiet":
+                options.quiet = true;
+                break;
+            case "--trace":
+                options.traceFile = new File(value(args, ++i, arg));
+                break;
+            case "--dendrogram":
+                options.dendrogramFile = new File(value(args, ++i, arg));
+                break;
+            case "--daemon":
+                options.daemonPort = intValue(args, ++i, arg, 0);
+                break;
+            case "--coupling":
+                options.classA = value(args, ++i, arg);
+                options.classB = value(args, ++i, arg);
+                break;
+            case "--gui":
+                options.showGui = true;
+                break;
+            default:
+                if (arg.startsWith("--") || options.sourceRoot != null) {
+                    throw new IllegalArgumentException("Argument inconnu : " + arg);
+                }
+                options.sourceRoot = new File(arg);
+            }
+        }
+        if (options.sourceRoot == null) {
+            throw new IllegalArgumentException("Racine des sources manquante");
+        }
+        boolean fileRoot = options.bytecode || options.fromSnapshot;
+        if (!options.sourceRoot.isDirectory() && !(fileRoot && options.sourceRoot.isFile())) {
+            throw new IllegalArgumentException("Dossier introuvable : " + options.sourceRoot);
+        }
+        if (options.daemonPort >= 0 && fileRoot) {
+            throw new IllegalArgumentException("--daemon surveille un dossier de sources");
+        }
+        // Un seul mode de construction du graphe d'appels (--batch est compatible avec --cache, qui analyse
+        // déjà les fichiers modifiés par lots)
+        checkCompatible(options.fromSnapshot, "--from-snapshot", options.bytecode, "--bytecode");
+        checkCompatible(options.fromSnapshot, "--from-snapshot", options.streaming, "--streaming");
+        checkCompatible(options.fromSnapshot, "--from-snapshot", options.cacheFile != null, "--cache");
+        checkCompatible(options.fromSnapshot, "--from-snapshot", options.batch, "--batch");
+        checkCompatible(options.streaming, "--streaming", options.bytecode, "--bytecode");
+        checkCompatible(options.streaming, "--streaming", options.cacheFile != null, "--cache");
+        checkCompatible(options.streaming, "--streaming", options.batch, "--batch");
+        checkCompatible(options.bytecode, "--bytecode", options.cacheFile != null, "--cache");
+        checkCompatible(options.bytecode, "--bytecode", options.batch, "--batch");
+        checkCompatible(options.daemonPort >= 0, "--daemon", options.streaming, "--streaming");
+        if (options.sourcepath == null) {
+            options.sourcepath = new String[] { options.sourceRoot.getPath() };
+        }
+        return options;
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Valeur manquante pour " + option);
+        }
+        return args[i];
+    }
+
+    // Entier au moins égal à min
+    private static int intValue(String[] args, int i, String option, int min) {
+        int value;
+        try {
+            value = Integer.parseInt(value(args, i, option));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valeur invalide pour " + option + " : " + args[i]);
+        }
+        if (value < min) {
+            throw new IllegalArgumentException("Valeur invalide pour " + option + " : " + args[i] + " (minimum "
+                    + min + ")");
+        }
+        return value;
+    }
+
+    private static void checkCompatible(boolean first, String firstOption, boolean second, String secondOption) {
+        if (first && second) {
+            throw new IllegalArgumentException("Options incompatibles : " + firstOption + " et " + secondOption);
+        }
+    }
+
+    private static String[] splitPath(String path) {
+        return path.isEmpty() ? new String[0] : path.split(File.pathSeparator);
+    }
+}
@@ -0,0 +1,666 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Extraction du graphe d'appels depuis le bytecode (.class et jars), sans sources ni JDT.
+// Les fichiers de classes sont décodés en parallèle (pool de constantes, méthodes, instructions invoke*,
+// accès aux champs et références de types), les .class isolés étant projetés en mémoire. Les appels sont
+// ensuite rattachés à la classe qui déclare la méthode appelée, en remontant la hiérarchie des classes lues,
+// et nommés comme dans l'analyse des sources (Classe.methode(Type,...)) : les deux analyses sont comparables.
+public class BytecodeCallGraphExtractor {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int ACC_BRIDGE = 0x0040;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final int GETSTATIC = 0xb2;
+    private static final int PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int NEW = 0xbb;
+    private static final int ANEWARRAY = 0xbd;
+    private static final int CHECKCAST = 0xc0;
+    private static final int INSTANCEOF = 0xc1;
+    private static final int MULTIANEWARRAY = 0xc5;
+
+    // Longueur de chaque instruction, opcode compris ; 0 : longueur variable (switch, wide) ou opcode invalide
+    private static final int[] INSTRUCTION_LENGTHS = instructionLengths();
+
+    // Rien de trouvé dans les classes lues (méthode ou champ hérité d'une bibliothèque)
+    private static final ClassInfo UNRESOLVED = new ClassInfo();
+
+    // Contenu utile d'un fichier de classe ; les chaînes du pool de constantes sont décodées une seule fois
+    private static final class ClassInfo {
+        String name; // Nom interne, ex. org/apache/commons/io/FileUtils
+        String superName;
+        String[] interfaces;
+        boolean isInterface;
+        final Set<String> methods = new HashSet<>(); // Nom + descripteur de toutes les méthodes déclarées
+        final Set<String> fields = new HashSet<>();
+        final List<String> fieldDescriptors = new ArrayList<>();
+        final List<MethodInfo> bodies = new ArrayList<>(); // Méthodes avec du code, hors méthodes ponts
+        String[] classRefs; // Par indice du pool : nom interne des entrées Class
+        String[] refOwners; // Par indice du pool : classe, nom et descripteur des Fieldref / Methodref
+        String[] refNames;
+        String[] refDescriptors;
+        ClassInfo[] resolvedRefs; // Classe déclarante de chaque référence, calculée à la demande
+    }
+
+    private static final class MethodInfo {
+        String name;
+        String descriptor;
+        boolean synthetic;
+        int[] instructions; // opcode << 16 | indice dans le pool de constantes
+    }
+
+    // Un fichier .class isolé ou une entrée de jar
+    private static final class ClassSource {
+        final File file;
+        final ZipFile jar;
+        final ZipEntry entry;
+
+        ClassSource(File file, ZipFile jar, ZipEntry entry) {
+            this.file = file;
+            this.jar = jar;
+            this.entry = entry;
+        }
+    }
+
+    private final Map<String, ClassInfo> classes = new HashMap<>();
+
+    // Construire le graphe d'appels des classes d'un dossier (fichiers .class et jars) ou d'un jar
+    public static void buildCallGraph(File root, Map<String, List<String>> callGraph,
+            Map<String, String> methodToClassMap, CouplingLayers relations, int threads)
+            throws IOException, InterruptedException {
+        List<ZipFile> jars = new ArrayList<>();
+        try {
+            List<ClassSource> sources = new ArrayList<>();
+            listClassSources(root, sources, jars);
+            ClassInfo[] infos = readClasses(sources, threads);
+
+            BytecodeCallGraphExtractor extractor = new BytecodeCallGraphExtractor();
+            List<ClassInfo> ordered = new ArrayList<>(infos.length);
+            for (ClassInfo info : infos) {
+                // Comme sur un classpath, la première définition d'une classe masque les suivantes
+                if (!extractor.classes.containsKey(info.name)) {
+                    extractor.classes.put(info.name, info);
+                    ordered.add(info);
+                }
+            }
+            System.out.println("Bytecode : " + ordered.size() + " classes lues");
+            for (ClassInfo info : ordered) {
+                extractor.addClass(info, callGraph, methodToClassMap, relations);
+            }
+        } finally {
+            for (ZipFile jar : jars) {
+                jar.close();
+            }
+        }
+    }
+
+    // Fichiers .class et entrées des jars, dans un ordre reproductible (noms triés)
+    private static void listClassSources(File file, List<ClassSource> sources, List<ZipFile> jars)
+            throws IOException {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            Arrays.sort(children);
+            for (File child : children) {
+                listClassSources(child, sources, jars);
+            }
+        } else if (file.getName().endsWith(".class") && !file.getName().equals("module-info.class")) {
+            sources.add(new ClassSource(file, null, null));
+        } else if (file.getName().endsWith(".jar")) {
+            ZipFile jar = new ZipFile(file);
+            jars.add(jar);
+            List<ZipEntry> entries = new ArrayList<>();
+            for (Enumeration<? extends ZipEntry> e = jar.entries(); e.hasMoreElements();) {
+                ZipEntry entry = e.nextElement();
+                if (entry.getName().endsWith(".class") && !entry.getName().endsWith("module-info.class")
+                        && !entry.getName().startsWith("META-INF/")) {
+                    entries.add(entry);
+                }
+            }
+            entries.sort((a, b) -> a.getName().compareTo(b.getName()));
+            for (ZipEntry entry : entries) {
+                sources.add(new ClassSource(file, jar, entry));
+            }
+        }
+    }
+
+    // Décoder les classes par tranches, une tranche par worker, et les retourner dans l'ordre des sources
+    private static ClassInfo[] readClasses(List<ClassSource> sources, int threads)
+            throws IOException, InterruptedException {
+        ClassInfo[] infos = new ClassInfo[sources.size()];
+        int workers = Math.max(1, Math.min(threads, sources.size()));
+        int chunkSize = Math.max(1, (sources.size() + workers - 1) / workers);
+        if (workers == 1) {
+            readChunk(sources, 0, sources.size(), infos);
+            return infos;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers, PipelineMetrics.threadFactory());
+        try {
+            List<Future<Void>> futures = new ArrayList<>(workers);
+            for (int start = 0; start < sources.size(); start += chunkSize) {
+                final int from = start;
+                final int to = Math.min(start + chunkSize, sources.size());
+                futures.add(executor.submit(() -> {
+                    readChunk(sources, from, to, infos);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return infos;
+    }
+
+    private static void readChunk(List<ClassSource> sources, int from, int to, ClassInfo[] infos) throws IOException {
+        for (int i = from; i < to; i++) {
+            ClassSource source = sources.get(i);
+            String location = source.entry == null ? source.file.getPath()
+                    : source.file.getPath() + "!" + source.entry.getName();
+            try {
+                infos[i] = readClass(bytesOf(source));
+            } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new IOException("Fichier de classe invalide : " + location, e);
+            }
+        }
+    }
+
+    // Les .class isolés sont projetés en mémoire ; les entrées de jar, compressées, sont décompressées en mémoire
+    private static ByteBuffer bytesOf(ClassSource source) throws IOException {
+        if (source.entry == null) {
+            try (FileChannel channel = FileChannel.open(source.file.toPath(), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        try (InputStream in = source.jar.getInputStream(source.entry)) {
+            return ByteBuffer.wrap(in.readAllBytes());
+        }
+    }
+
+    private static ClassInfo readClass(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Nombre magique absent");
+        }
+        ClassInfo info = new ClassInfo();
+
+        // Pool de constantes : positions des entrées, chaînes décodées à la demande
+        int count = u2(buffer, 8);
+        int[] offsets = new int[count];
+        int[] tags = new int[count];
+        int position = 10;
+        for (int i = 1; i < count; i++) {
+            int tag = buffer.get(position) & 0xff;
+            tags[i] = tag;
+            offsets[i] = position + 1;
+            switch (tag) {
+            case 1: // Utf8
+                position += 3 + u2(buffer, position + 1);
+                break;
+            case 3: // Integer
+            case 4: // Float
+            case 9: // Fieldref
+            case 10: // Methodref
+            case 11: // InterfaceMethodref
+            case 12: // NameAndType
+            case 17: // Dynamic
+            case 18: // InvokeDynamic
+                position += 5;
+                break;
+            case 5: // Long
+            case 6: // Double, occupe deux entrées
+                position += 9;
+                i++;
+                break;
+            case 7: // Class
+            case 8: // String
+            case 16: // MethodType
+            case 19: // Module
+            case 20: // Package
+                position += 3;
+                break;
+            case 15: // MethodHandle
+                position += 4;
+                break;
+            default:
+                throw new IllegalArgumentException("Constante de type inconnu : " + tag);
+            }
+        }
+        String[] utf8 = new String[count];
+        info.classRefs = new String[count];
+        info.refOwners = new String[count];
+        info.refNames = new String[count];
+        info.refDescriptors = new String[count];
+        info.resolvedRefs = new ClassInfo[count];
+        for (int i = 1; i < count; i++) {
+            if (tags[i] == 7) {
+                info.classRefs[i] = utf8(buffer, u2(buffer, offsets[i]), offsets, utf8);
+            }
+        }
+        for (int i = 1; i < count; i++) {
+            if (tags[i] == 9 || tags[i] == 10 || tags[i] == 11) {
+                info.refOwners[i] = info.classRefs[u2(buffer, offsets[i])];
+                int nameAndType = offsets[u2(buffer, offsets[i] + 2)];
+                info.refNames[i] = utf8(buffer, u2(buffer, nameAndType), offsets, utf8);
+                info.refDescriptors[i] = utf8(buffer, u2(buffer, nameAndType + 2), offsets, utf8);
+            }
+        }
+
+        int access = u2(buffer, position);
+        info.isInterface = (access & ACC_INTERFACE) != 0;
+        info.name = info.classRefs[u2(buffer, position + 2)];
+        int superIndex = u2(buffer, position + 4);
+        info.superName = superIndex == 0 ? null : info.classRefs[superIndex];
+        int interfaceCount = u2(buffer, position + 6);
+        position += 8;
+        info.interfaces = new String[interfaceCount];
+        for (int i = 0; i < interfaceCount; i++) {
+            info.interfaces[i] = info.classRefs[u2(buffer, position)];
+            position += 2;
+        }
+
+        int fieldCount = u2(buffer, position);
+        position += 2;
+        for (int i = 0; i < fieldCount; i++) {
+            info.fields.add(utf8(buffer, u2(buffer, position + 2), offsets, utf8));
+            info.fieldDescriptors.add(utf8(buffer, u2(buffer, position + 4), offsets, utf8));
+            position = skipAttributes(buffer, position + 6);
+        }
+
+        int methodCount = u2(buffer, position);
+        position += 2;
+        for (int i = 0; i < methodCount; i++) {
+            int methodAccess = u2(buffer, position);
+            String name = utf8(buffer, u2(buffer, position + 2), offsets, utf8);
+            String descriptor = utf8(buffer, u2(buffer, position + 4), offsets, utf8);
+            info.methods.add(name + descriptor);
+            int attributeCount = u2(buffer, position + 6);
+            position += 8;
+            for (int a = 0; a < attributeCount; a++) {
+                int length = buffer.getInt(position + 2);
+                if ((methodAccess & ACC_BRIDGE) == 0
+                        && "Code".equals(utf8(buffer, u2(buffer, position), offsets, utf8))) {
+                    MethodInfo method = new MethodInfo();
+                    method.name = name;
+                    method.descriptor = descriptor;
+                    method.synthetic = (methodAccess & ACC_SYNTHETIC) != 0;
+                    method.instructions = readInstructions(buffer, position + 14, buffer.getInt(position + 10));
+                    info.bodies.add(method);
+                }
+                position += 6 + length;
+            }
+        }
+        return info;
+    }
+
+    // Instructions qui référencent une méthode, un champ ou une classe ; les autres sont sautées
+    private static int[] readInstructions(ByteBuffer buffer, int start, int length) {
+        int[] instructions = new int[16];
+        int count = 0;
+        int pc = 0;
+        while (pc < length) {
+            int opcode = buffer.get(start + pc) & 0xff;
+            if ((opcode >= GETSTATIC && opcode <= INVOKEINTERFACE) || opcode == NEW || opcode == ANEWARRAY
+                    || opcode == CHECKCAST || opcode == INSTANCEOF || opcode == MULTIANEWARRAY) {
+                if (count == instructions.length) {
+                    instructions = Arrays.copyOf(instructions, count * 2);
+                }
+                instructions[count++] = opcode << 16 | u2(buffer, start + pc + 1);
+            }
+            pc += instructionLength(buffer, start, pc, opcode);
+        }
+        return Arrays.copyOf(instructions, count);
+    }
+
+    private static int instructionLength(ByteBuffer buffer, int start, int pc, int opcode) {
+        int length = INSTRUCTION_LENGTHS[opcode];
+        if (length > 0) {
+            return length;
+        }
+        // Les switch sont alignés sur 4 octets depuis le début du code
+        int aligned = (pc + 4) & ~3;
+        switch (opcode) {
+        case 0xaa: // tableswitch
+            int low = buffer.getInt(start + aligned + 4);
+            int high = buffer.getInt(start + aligned + 8);
+            return aligned + 12 + 4 * (high - low + 1) - pc;
+        case 0xab: // lookupswitch
+            return aligned + 8 + 8 * buffer.getInt(start + aligned + 4) - pc;
+        case 0xc4: // wide
+            return (buffer.get(start + pc + 1) & 0xff) == 0x84 ? 6 : 4;
+        default:
+            throw new IllegalArgumentException("Opcode invalide : " + opcode);
+        }
+    }
+
+    private static int skipAttributes(ByteBuffer buffer, int position) {
+        int count = u2(buffer, position);
+        position += 2;
+        for (int i = 0; i < count; i++) {
+            position += 6 + buffer.getInt(position + 2);
+        }
+        return position;
+    }
+
+    // Même règles que le visiteur des sources : déclarations (put), appels (putIfAbsent), relations entre classes
+    private void addClass(ClassInfo info, Map<String, List<String>> callGraph, Map<String, String> methodToClassMap,
+            CouplingLayers relations) {
+        if (info.isInterface) {
+            return; // Les interfaces ne sont pas analysées, comme dans les sources
+        }
+        String className = simpleName(info.name);
+        int slash = info.name.lastIndexOf('/');
+        relations.setPackage(className, slash < 0 ? "" : info.name.substring(0, slash).replace('/', '.'));
+        if (info.superName != null) {
+            addRelation(relations, CouplingLayers.Kind.INHERITANCE, className, info.superName);
+        }
+        for (String superInterface : info.interfaces) {
+            addRelation(relations, CouplingLayers.Kind.INHERITANCE, className, superInterface);
+        }
+        for (String descriptor : info.fieldDescriptors) {
+            addDescriptorReferences(relations, className, descriptor);
+        }
+
+        for (MethodInfo method : info.bodies) {
+            // Les appels des initialiseurs statiques sont hors de toute méthode : seules les relations comptent
+            List<String> calledMethods = null;
+            if (!method.name.equals("<clinit>")) {
+                String methodName = methodKey(className,
+                        method.name.equals("<init>") ? className : method.name, method.descriptor);
+                methodToClassMap.put(methodName, className);
+                calledMethods = callGraph.get(methodName);
+                if (calledMethods == null) {
+                    calledMethods = new ArrayList<>();
+                    callGraph.put(methodName, calledMethods);
+                }
+                if (!method.synthetic) {
+                    addDescriptorReferences(relations, className, method.descriptor);
+                }
+            }
+
+            for (int instruction : method.instructions) {
+                int opcode = instruction >>> 16;
+                int index = instruction & 0xffff;
+                if (opcode >= INVOKEVIRTUAL && opcode <= INVOKEINTERFACE) {
+                    String name = info.refNames[index];
+                    if (name.equals("<init>")) {
+                        continue; // Création d'objet : comptée comme référence de type par NEW
+                    }
+                    ClassInfo declaringClass = resolveMethod(info, index);
+                    if (opcode == INVOKESPECIAL && !info.refOwners[index].equals(info.name)) {
+                        // super.methode(...) : relation à part, comme SuperMethodInvocation
+                        if (declaringClass != UNRESOLVED) {
+                            addRelation(relations, CouplingLayers.Kind.SUPER_CALL, className, declaringClass.name);
+                        }
+                        continue;
+                    }
+                    if (calledMethods == null) {
+                        continue;
+                    }
+                    String invokedMethodName;
+                    if (declaringClass != UNRESOLVED) {
+                        String declaringClassName = simpleName(declaringClass.name);
+                        invokedMethodName = methodKey(declaringClassName, name, info.refDescriptors[index]);
+                        methodToClassMap.putIfAbsent(invokedMethodName, declaringClassName);
+                    } else {
+                        // Méthode d'une bibliothèque : rattachée à la classe courante
+                        invokedMethodName = className + "." + name;
+                        methodToClassMap.putIfAbsent(invokedMethodName, className);
+                    }
+                    calledMethods.add(invokedMethodName);
+                } else if (opcode >= GETSTATIC && opcode <= PUTFIELD) {
+                    ClassInfo declaringClass = resolveField(info, index);
+                    if (declaringClass != UNRESOLVED) {
+                        addRelation(relations, CouplingLayers.Kind.FIELD_ACCESS, className, declaringClass.name);
+                    }
+                } else {
+                    // new, anewarray, checkcast, instanceof, multianewarray : le type peut être un tableau
+                    String type = info.classRefs[index];
+                    if (type.startsWith("[")) {
+                        addDescriptorReferences(relations, className, type);
+                    } else {
+                        addRelation(relations, CouplingLayers.Kind.TYPE_REFERENCE, className, type);
+                    }
+                }
+            }
+        }
+    }
+
+    // Classe déclarant la méthode référencée : la classe nommée puis ses ancêtres, puis les interfaces
+    private ClassInfo resolveMethod(ClassInfo info, int index) {
+        ClassInfo resolved = info.resolvedRefs[index];
+        if (resolved == null) {
+            String member = info.refNames[index] + info.refDescriptors[index];
+            resolved = findMember(classes.get(info.refOwners[index]), member, true, new HashSet<>());
+            info.resolvedRefs[index] = resolved;
+        }
+        return resolved;
+    }
+
+    private ClassInfo resolveField(ClassInfo info, int index) {
+        ClassInfo resolved = info.resolvedRefs[index];
+        if (resolved == null) {
+            resolved = findMember(classes.get(info.refOwners[index]), info.refNames[index], false, new HashSet<>());
+            info.resolvedRefs[index] = resolved;
+        }
+        return resolved;
+    }
+
+    private ClassInfo findMember(ClassInfo start, String member, boolean method, Set<String> visited) {
+        for (ClassInfo current = start; current != null; current = classes.get(current.superName)) {
+            if (!visited.add(current.name)) {
+                break;
+            }
+            if (method ? current.methods.contains(member) : current.fields.contains(member)) {
+                return current;
+            }
+        }
+        for (ClassInfo current = start; current != null; current = classes.get(current.superName)) {
+            for (String superInterface : current.interfaces) {
+                ClassInfo found = findMember(classes.get(superInterface), member, method, visited);
+                if (found != UNRESOLVED) {
+                    return found;
+                }
+            }
+            if (current.superName == null) {
+                break;
+            }
+        }
+        return UNRESOLVED;
+    }
+
+    // Relation vers une classe lue, autre que la classe courante
+    private void addRelation(CouplingLayers relations, CouplingLayers.Kind kind, String className,
+            String targetInternalName) {
+        if (classes.containsKey(targetInternalName)) {
+            String targetClassName = simpleName(targetInternalName);
+            if (!targetClassName.equals(className)) {
+                relations.add(kind, className, targetClassName);
+            }
+        }
+    }
+
+    // Références de types d'un descripteur de champ ou de méthode, ex. (Ljava/io/File;[Lfoo/Bar;)V
+    private void addDescriptorReferences(CouplingLayers relations, String className, String descriptor) {
+        int i = 0;
+        while (i < descriptor.length()) {
+            if (descriptor.charAt(i) == 'L') {
+                int end = descriptor.indexOf(';', i);
+                addRelation(relations, CouplingLayers.Kind.TYPE_REFERENCE, className, descriptor.substring(i + 1, end));
+                i = end;
+            }
+            i++;
+        }
+    }
+
+    // Nom de méthode des sources : classe, nom et types des paramètres effacés, ex. FileUtils.copyFile(File,File)
+    private static String methodKey(String className, String name, String descriptor) {
+        StringBuilder key = new StringBuilder(className).append('.').append(name).append('(');
+        int i = 1;
+        boolean first = true;
+        while (descriptor.charAt(i) != ')') {
+            int dimensions = 0;
+            while (descriptor.charAt(i) == '[') {
+                dimensions++;
+                i++;
+            }
+            if (!first) {
+                key.append(',');
+            }
+            first = false;
+            char c = descriptor.charAt(i);
+            if (c == 'L') {
+                int end = descriptor.indexOf(';', i);
+                key.append(simpleName(descriptor.substring(i + 1, end)));
+                i = end + 1;
+            } else {
+                key.append(primitiveName(c));
+                i++;
+            }
+            for (int d = 0; d < dimensions; d++) {
+                key.append("[]");
+            }
+        }
+        return key.append(')').toString();
+    }
+
+    // Nom simple d'une classe, comme dans les sources : Outer$Inner -> Inner, Outer$1 (anonyme) -> Outer,
+    // Outer$1Local (classe locale) -> Local
+    static String simpleName(String internalName) {
+        int start = internalName.lastIndexOf('/') + 1;
+        int end = internalName.length();
+        while (true) {
+            int dollar = internalName.lastIndexOf('$', end - 1);
+            if (dollar < start) {
+                return internalName.substring(start, end);
+            }
+            int nameStart = dollar + 1;
+            while (nameStart < end && Character.isDigit(internalName.charAt(nameStart))) {
+                nameStart++;
+            }
+            if (nameStart < end) {
+                return internalName.substring(nameStart, end);
+            }
+            end = dollar;
+        }
+    }
+
+    private static String primitiveName(char descriptor) {
+        switch (descriptor) {
+        case 'B':
+            return "byte";
+        case 'C':
+            return "char";
+        case 'D':
+            return "double";
+        case 'F':
+            return "float";
+        case 'I':
+            return "int";
+        case 'J':
+            return "long";
+        case 'S':
+            return "short";
+        case 'Z':
+            return "boolean";
+        default:
+            throw new IllegalArgumentException("Descripteur invalide : " + descriptor);
+        }
+    }
+
+    private static int u2(ByteBuffer buffer, int position) {
+        return buffer.getShort(position) & 0xffff;
+    }
+
+    // Chaîne Utf8 du pool (UTF-8 modifié de la JVM), décodée à la première utilisation
+    private static String utf8(ByteBuffer buffer, int index, int[] offsets, String[] utf8) {
+        String value = utf8[index];
+        if (value == null) {
+            int position = offsets[index];
+            int end = position + 2 + u2(buffer, position);
+            char[] chars = new char[end - position - 2];
+            int length = 0;
+            for (int i = position + 2; i < end;) {
+                int b = buffer.get(i++) & 0xff;
+                if (b < 0x80) {
+                    chars[length++] = (char) b;
+                } else if ((b & 0xe0) == 0xc0) {
+                    chars[length++] = (char) (((b & 0x1f) << 6) | (buffer.get(i++) & 0x3f));
+                } else {
+                    chars[length++] = (char) (((b & 0x0f) << 12) | ((buffer.get(i++) & 0x3f) << 6)
+                            | (buffer.get(i++) & 0x3f));
+                }
+            }
+            value = new String(chars, 0, length);
+            utf8[index] = value;
+        }
+        return value;
+    }
+
+    private static int[] instructionLengths() {
+        int[] lengths = new int[256];
+        Arrays.fill(lengths, 0x00, 0x10, 1); // nop, constantes
+        lengths[0x10] = 2; // bipush
+        lengths[0x11] = 3; // sipush
+        lengths[0x12] = 2; // ldc
+        lengths[0x13] = 3; // ldc_w
+        lengths[0x14] = 3; // ldc2_w
+        Arrays.fill(lengths, 0x15, 0x1a, 2); // iload .. aload
+        Arrays.fill(lengths, 0x1a, 0x36, 1); // xload_n, xaload
+        Arrays.fill(lengths, 0x36, 0x3b, 2); // istore .. astore
+        Arrays.fill(lengths, 0x3b, 0x84, 1); // xstore_n, xastore, pile, arithmétique
+        lengths[0x84] = 3; // iinc
+        Arrays.fill(lengths, 0x85, 0x99, 1); // conversions, comparaisons
+        Arrays.fill(lengths, 0x99, 0xa9, 3); // if*, goto, jsr
+        lengths[0xa9] = 2; // ret
+        Arrays.fill(lengths, 0xac, 0xb2, 1); // xreturn, return
+        Arrays.fill(lengths, 0xb2, 0xb9, 3); // getstatic .. invokestatic
+        lengths[0xb9] = 5; // invokeinterface
+        lengths[0xba] = 5; // invokedynamic
+        lengths[0xbb] = 3; // new
+        lengths[0xbc] = 2; // newarray
+        lengths[0xbd] = 3; // anewarray
+        lengths[0xbe] = 1; // arraylength
+        lengths[0xbf] = 1; // athrow
+        lengths[0xc0] = 3; // checkcast
+        lengths[0xc1] = 3; // instanceof
+        lengths[0xc2] = 1; // monitorenter
+        lengths[0xc3] = 1; // monitorexit
+        lengths[0xc5] = 4; // multianewarray
+        lengths[0xc6] = 3; // ifnull
+        lengths[0xc7] = 3; // ifnonnull
+        lengths[0xc8] = 5; // goto_w
+        lengths[0xc9] = 5; // jsr_w
+        return lengths;
+    }
+}
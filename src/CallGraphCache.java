@@ -0,0 +1,248 @@
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Cache persistant des contributions de chaque fichier au graphe d'appels.
+// Une entrée est réutilisée si le fichier a la même date de modification et la même taille,
+// ou à défaut le même contenu (empreinte SHA-256). Les liaisons d'un fichier dépendant aussi des autres
+// fichiers, chaque entrée garde les types dont elle dépend (voir Parser.buildCallGraphIncremental).
+public class CallGraphCache {
+    private static final int MAGIC = 0x43474341; // "CGCA"
+    // 2 : méthodes nommées par leur liaison, 3 : relations entre classes, 4 : paquetages des classes,
+    // 5 : types déclarés et dépendances de chaque fichier
+    private static final int VERSION = 5;
+
+    private final File cacheFile;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private static class Entry {
+        long lastModified;
+        long length;
+        byte[] hash;
+        FileCallGraph fileCallGraph;
+    }
+
+    public CallGraphCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    // Charger le cache depuis le disque ; un cache absent ou illisible est simplement ignoré
+    public void load() {
+        entries.clear();
+        if (!cacheFile.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                Entry entry = new Entry();
+                entry.lastModified = in.readLong();
+                entry.length = in.readLong();
+                entry.hash = new byte[in.readUnsignedByte()];
+                in.readFully(entry.hash);
+                entry.fileCallGraph = readFileCallGraph(in);
+                entries.put(path, entry);
+            }
+        } catch (IOException e) {
+            System.err.println("Cache ignoré (" + cacheFile + ") : " + e.getMessage());
+            entries.clear();
+        }
+    }
+
+    // Oublier toutes les contributions : chaque fichier sera ré-analysé
+    public void clear() {
+        entries.clear();
+    }
+
+    // Retourner la contribution en cache du fichier, ou null s'il doit être ré-analysé
+    public FileCallGraph lookup(File file) throws IOException {
+        Entry entry = entries.get(file.getAbsolutePath());
+        if (entry == null) {
+            return null;
+        }
+        if (entry.lastModified == file.lastModified() && entry.length == file.length()) {
+            return entry.fileCallGraph;
+        }
+        // Date modifiée (checkout, copie...) : comparer le contenu avant de ré-analyser
+        byte[] hash = hash(file);
+        if (Arrays.equals(hash, entry.hash)) {
+            entry.lastModified = file.lastModified();
+            entry.length = file.length();
+            return entry.fileCallGraph;
+        }
+        return null;
+    }
+
+    // Enregistrer la contribution d'un fichier qui vient d'être analysé ; retourne la contribution qu'elle
+    // remplace, ou null
+    public FileCallGraph put(File file, FileCallGraph fileCallGraph) throws IOException {
+        Entry entry = new Entry();
+        entry.lastModified = file.lastModified();
+        entry.length = file.length();
+        entry.hash = hash(file);
+        entry.fileCallGraph = fileCallGraph;
+        Entry previous = entries.put(file.getAbsolutePath(), entry);
+        return previous == null ? null : previous.fileCallGraph;
+    }
+
+    // Oublier les fichiers qui n'existent plus dans l'arborescence analysée ; retourne les types qu'ils
+    // déclaraient
+    public Set<String> retainAll(List<File> files) {
+        Map<String, Entry> retained = new HashMap<>();
+        for (File file : files) {
+            Entry entry = entries.remove(file.getAbsolutePath());
+            if (entry != null) {
+                retained.put(file.getAbsolutePath(), entry);
+            }
+        }
+        Set<String> removedClasses = new HashSet<>();
+        for (Entry entry : entries.values()) {
+            removedClasses.addAll(entry.fileCallGraph.getDeclaredClasses());
+        }
+        entries.clear();
+        entries.putAll(retained);
+        return removedClasses;
+    }
+
+    public void save() throws IOException {
+        File tmpFile = new File(cacheFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                Entry entry = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeLong(entry.lastModified);
+                out.writeLong(entry.length);
+                out.writeByte(entry.hash.length);
+                out.write(entry.hash);
+                writeFileCallGraph(out, entry.fileCallGraph);
+            }
+        }
+        // Remplacer l'ancien cache seulement une fois le nouveau entièrement écrit
+        Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeFileCallGraph(DataOutputStream out, FileCallGraph fileCallGraph) throws IOException {
+        out.writeInt(fileCallGraph.getCallGraph().size());
+        for (Map.Entry<String, List<String>> entry : fileCallGraph.getCallGraph().entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (String calledMethod : entry.getValue()) {
+                out.writeUTF(calledMethod);
+            }
+        }
+        writeStringMap(out, fileCallGraph.getDeclaredMethods());
+        writeStringMap(out, fileCallGraph.getInvokedMethods());
+
+        Map<String, Map<String, int[]>> relations = fileCallGraph.getRelations().getCounts();
+        out.writeInt(relations.size());
+        for (Map.Entry<String, Map<String, int[]>> entry : relations.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (Map.Entry<String, int[]> relation : entry.getValue().entrySet()) {
+                out.writeUTF(relation.getKey());
+                for (int count : relation.getValue()) {
+                    out.writeInt(count);
+                }
+            }
+        }
+        writeStringMap(out, fileCallGraph.getRelations().getPackages());
+        writeStringSet(out, fileCallGraph.getDeclaredClasses());
+        writeStringSet(out, fileCallGraph.getDependencies());
+    }
+
+    private static FileCallGraph readFileCallGraph(DataInputStream in) throws IOException {
+        FileCallGraph fileCallGraph = new FileCallGraph();
+        int methods = in.readInt();
+        for (int i = 0; i < methods; i++) {
+            String callingMethod = in.readUTF();
+            int calls = in.readInt();
+            List<String> calledMethods = new ArrayList<>(calls);
+            for (int j = 0; j < calls; j++) {
+                calledMethods.add(in.readUTF());
+            }
+            fileCallGraph.getCallGraph().put(callingMethod, calledMethods);
+        }
+        readStringMap(in, fileCallGraph.getDeclaredMethods());
+        readStringMap(in, fileCallGraph.getInvokedMethods());
+
+        int sourceClasses = in.readInt();
+        for (int i = 0; i < sourceClasses; i++) {
+            String sourceClass = in.readUTF();
+            int targetClasses = in.readInt();
+            for (int j = 0; j < targetClasses; j++) {
+                String targetClass = in.readUTF();
+                for (CouplingLayers.Kind kind : CouplingLayers.Kind.values()) {
+                    int count = in.readInt();
+                    if (count != 0) {
+                        fileCallGraph.getRelations().add(kind, sourceClass, targetClass, count);
+                    }
+                }
+            }
+        }
+        readStringMap(in, fileCallGraph.getRelations().getPackages());
+        readStringSet(in, fileCallGraph.getDeclaredClasses());
+        readStringSet(in, fileCallGraph.getDependencies());
+        return fileCallGraph;
+    }
+
+    private static void writeStringMap(DataOutputStream out, Map<String, String> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+    }
+
+    private static void readStringMap(DataInputStream in, Map<String, String> map) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            map.put(in.readUTF(), in.readUTF());
+        }
+    }
+
+    private static void writeStringSet(DataOutputStream out, Set<String> set) throws IOException {
+        out.writeInt(set.size());
+        for (String value : set) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static void readStringSet(DataInputStream in, Set<String> set) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            set.add(in.readUTF());
+        }
+    }
+
+    private static byte[] hash(File file) throws IOException {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file.toPath()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
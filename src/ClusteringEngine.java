@@ -0,0 +1,239 @@
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Moteur de clustering agglomératif : matrice creuse des couplages entre clusters mise à jour à chaque
+// fusion (Lance-Williams pour la somme des couplages) et tas des paires candidates.
+// Les clusters sont désignés par leur rang dans l'ordre d'itération initial des clusters ; la paire choisie
+// est celle de couplage maximal, puis de plus petit rang, puis de plus petit rang partenaire, ce qui
+// reproduit exactement le parcours exhaustif de toutes les paires.
+// Avec setParallelism(n > 1), la paire est cherchée par un parcours parallèle fork-join du triangle
+// supérieur des paires, réduit avec le même ordre de départage.
+public class ClusteringEngine {
+    private static final int ROWS_PER_TASK = 256;
+    // Un pool par degré de parallélisme, partagé par tous les moteurs (clustering, modules, démon) :
+    // ses threads sont des démons et restent disponibles pour les clusterings suivants
+    private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
+    private final String[] names; // Rang -> nom du cluster
+    private final List<Map<Integer, Integer>> links; // Rang -> (rang voisin -> couplage entre les deux clusters)
+    private final Map<String, Integer> ranks;
+    private final BitSet alive;
+    private final int[] sizes; // Nombre de classes de chaque cluster
+    private final long[] intraCouplings; // Somme des couplages symétriques entre les classes de chaque cluster
+    private final PriorityQueue<CandidatePair> candidates;
+    private ForkJoinPool pool; // null : recherche par tas
+
+    private static class CandidatePair implements Comparable<CandidatePair> {
+        final int coupling;
+        final int a; // a < b
+        final int b;
+
+        CandidatePair(int coupling, int a, int b) {
+            this.coupling = coupling;
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public int compareTo(CandidatePair other) {
+            if (coupling != other.coupling) {
+                return Integer.compare(other.coupling, coupling);
+            }
+            if (a != other.a) {
+                return Integer.compare(a, other.a);
+            }
+            return Integer.compare(b, other.b);
+        }
+    }
+
+    // Meilleure paire dont le plus petit rang est dans [from, to)
+    private class PairSearchTask extends RecursiveTask<CandidatePair> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        PairSearchTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected CandidatePair compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                CandidatePair best = null;
+                for (int a = alive.nextSetBit(from); a >= 0 && a < to; a = alive.nextSetBit(a + 1)) {
+                    for (Map.Entry<Integer, Integer> link : links.get(a).entrySet()) {
+                        int b = link.getKey();
+                        if (b > a) {
+                            CandidatePair pair = new CandidatePair(link.getValue(), a, b);
+                            if (best == null || pair.compareTo(best) < 0) {
+                                best = pair;
+                            }
+                        }
+                    }
+                }
+                return best;
+            }
+            int middle = (from + to) >>> 1;
+            PairSearchTask left = new PairSearchTask(from, middle);
+            left.fork();
+            CandidatePair right = new PairSearchTask(middle, to).compute();
+            return better(left.join(), right);
+        }
+    }
+
+    public ClusteringEngine(WeightedCouplingGraph couplingGraph, List<String> clusterOrder) {
+        int n = clusterOrder.size();
+        names = clusterOrder.toArray(new String[n]);
+        links = new ArrayList<>(n);
+        ranks = new HashMap<>();
+        alive = new BitSet(n);
+        alive.set(0, n);
+        sizes = new int[n];
+        intraCouplings = new long[n];
+        candidates = new PriorityQueue<>();
+
+        Symbols classes = couplingGraph.getClasses();
+        int[] rankOfClass = new int[classes.size()];
+        Arrays.fill(rankOfClass, -1);
+        for (int rank = 0; rank < n; rank++) {
+            rankOfClass[classes.idOf(names[rank])] = rank;
+            ranks.put(names[rank], rank);
+            sizes[rank] = 1;
+        }
+
+        for (int rank = 0; rank < n; rank++) {
+            Map<Integer, Integer> clusterLinks = new HashMap<>();
+            int classId = classes.idOf(names[rank]);
+            for (int i = couplingGraph.neighbourStart(classId); i < couplingGraph.neighbourEnd(classId); i++) {
+                int neighbourRank = rankOfClass[couplingGraph.neighbour(i)];
+                if (neighbourRank < 0) {
+                    continue; // Classe seulement appelée, qui n'est pas un cluster
+                }
+                int coupling = couplingGraph.neighbourWeight(i);
+                clusterLinks.put(neighbourRank, coupling);
+                if (rank < neighbourRank) {
+                    candidates.add(new CandidatePair(coupling, rank, neighbourRank));
+                }
+            }
+            links.add(clusterLinks);
+        }
+    }
+
+    // Nombre de threads de la recherche de paire (1 : tas, sans parallélisme)
+    public void setParallelism(int parallelism) {
+        candidates.clear();
+        if (parallelism > 1) {
+            pool = POOLS.computeIfAbsent(parallelism,
+                    threads -> new ForkJoinPool(threads, PipelineMetrics.forkJoinThreadFactory(), null, false));
+            return;
+        }
+        pool = null;
+        for (int a = alive.nextSetBit(0); a >= 0; a = alive.nextSetBit(a + 1)) {
+            for (Map.Entry<Integer, Integer> link : links.get(a).entrySet()) {
+                if (link.getKey() > a) {
+                    candidates.add(new CandidatePair(link.getValue(), a, link.getKey()));
+                }
+            }
+        }
+    }
+
+    // Trouver les deux clusters les plus couplés {a, b} avec a < b, ou null s'il reste moins de deux clusters
+    public int[] findClosestClusters() {
+        if (pool != null) {
+            CandidatePair best = pool.invoke(new PairSearchTask(0, names.length));
+            if (best != null) {
+                return new int[] { best.a, best.b };
+            }
+        }
+        while (!candidates.isEmpty()) {
+            CandidatePair top = candidates.peek();
+            if (alive.get(top.a) && alive.get(top.b) && coupling(top.a, top.b) == top.coupling) {
+                return new int[] { top.a, top.b };
+            }
+            candidates.poll(); // Paire périmée par une fusion
+        }
+        // Plus aucun couplage positif : les deux premiers clusters restants (couplage nul)
+        int a = alive.nextSetBit(0);
+        int b = a < 0 ? -1 : alive.nextSetBit(a + 1);
+        return b < 0 ? null : new int[] { a, b };
+    }
+
+    // Couplage total entre deux clusters vivants
+    public int coupling(int a, int b) {
+        Integer coupling = links.get(a).get(b);
+        return coupling == null ? 0 : coupling;
+    }
+
+    // Couplage moyen du cluster : somme des couplages a -> b entre classes distinctes / n(n - 1)
+    public double averageCoupling(int a) {
+        long pairs = (long) sizes[a] * (sizes[a] - 1);
+        return pairs == 0 ? 0 : (double) intraCouplings[a] / pairs;
+    }
+
+    // Couplage moyen du cluster qui résulterait de la fusion de a et b, en O(1) :
+    // chaque paire ordonnée de classes distinctes compte le couplage des deux sens
+    public double averageCouplingIfMerged(int a, int b) {
+        long size = sizes[a] + sizes[b];
+        long pairs = size * (size - 1);
+        long totalCoupling = 2 * (intraCouplings[a] + intraCouplings[b] + coupling(a, b));
+        return pairs == 0 ? 0 : (double) totalCoupling / pairs;
+    }
+
+    // Fusionner le cluster b dans le cluster a : w(a ∪ b, c) = w(a, c) + w(b, c)
+    public void merge(int a, int b) {
+        Map<Integer, Integer> linksA = links.get(a);
+        Map<Integer, Integer> linksB = links.get(b);
+        intraCouplings[a] += intraCouplings[b] + coupling(a, b);
+        sizes[a] += sizes[b];
+        linksA.remove(b);
+        for (Map.Entry<Integer, Integer> link : linksB.entrySet()) {
+            int c = link.getKey();
+            if (c == a) {
+                continue;
+            }
+            int coupling = linksA.merge(c, link.getValue(), Integer::sum);
+            Map<Integer, Integer> linksC = links.get(c);
+            linksC.remove(b);
+            linksC.put(a, coupling);
+            if (pool == null) {
+                candidates.add(new CandidatePair(coupling, Math.min(a, c), Math.max(a, c)));
+            }
+        }
+        links.set(b, null);
+        alive.clear(b);
+    }
+
+    private static CandidatePair better(CandidatePair first, CandidatePair second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null || first.compareTo(second) <= 0 ? first : second;
+    }
+
+    public String nameOf(int rank) {
+        return names[rank];
+    }
+
+    public int rankOf(String clusterName) {
+        return ranks.get(clusterName);
+    }
+
+    public int sizeOf(int rank) {
+        return sizes[rank];
+    }
+
+    public int clusterCount() {
+        return alive.cardinality();
+    }
+}
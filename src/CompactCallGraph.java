@@ -0,0 +1,148 @@
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Graphe d'appels compact : méthodes et classes internées en entiers, arcs au format CSR.
+// Les appels de la méthode m sont target(i) pour callStart(m) <= i < callEnd(m), weight(i) étant le nombre
+// d'occurrences de l'appel i (toujours 1 depuis les Maps, agrégé en mode streaming).
+// Les tableaux sont des IntBuffer : dans le tas, ou projetés depuis un instantané (GraphSnapshot).
+public class CompactCallGraph {
+    private final Symbols methods;
+    private final Symbols classes;
+    private final int callerCount; // Les méthodes clés du graphe d'origine ont les identifiants 0 .. callerCount - 1
+    private final IntBuffer methodClasses; // Classe de chaque méthode, -1 si inconnue
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer weights;
+
+    public CompactCallGraph(Map<String, List<String>> callGraph, Map<String, String> methodToClassMap) {
+        SymbolTable methods = new SymbolTable();
+        SymbolTable classes = new SymbolTable();
+        this.methods = methods;
+        this.classes = classes;
+
+        // Les méthodes appelantes sont internées d'abord, dans l'ordre du graphe d'appels
+        int edgeCount = 0;
+        for (Map.Entry<String, List<String>> entry : callGraph.entrySet()) {
+            methods.intern(entry.getKey());
+            edgeCount += entry.getValue().size();
+        }
+        callerCount = methods.size();
+
+        int[] callerOffsets = new int[callerCount + 1];
+        int[] targets = new int[edgeCount];
+        int edge = 0;
+        for (Map.Entry<String, List<String>> entry : callGraph.entrySet()) {
+            int caller = methods.idOf(entry.getKey());
+            for (String calledMethod : entry.getValue()) {
+                targets[edge++] = methods.intern(calledMethod);
+            }
+            callerOffsets[caller + 1] = edge;
+        }
+
+        int[] methodClasses = new int[methods.size()];
+        for (int m = 0; m < methods.size(); m++) {
+            String className = methodToClassMap.get(methods.nameOf(m));
+            methodClasses[m] = className == null ? -1 : classes.intern(className);
+        }
+        int[] weights = new int[edgeCount];
+        Arrays.fill(weights, 1);
+
+        this.methodClasses = IntBuffer.wrap(methodClasses);
+        this.offsets = IntBuffer.wrap(allOffsets(callerOffsets, callerCount, methods.size(), edgeCount));
+        this.targets = IntBuffer.wrap(targets);
+        this.weights = IntBuffer.wrap(weights);
+    }
+
+    // Graphe déjà agrégé (StreamingCallGraph) : la méthode m porte le nom methodNames[m], les appelants en premier
+    public CompactCallGraph(String[] methodNames, String[] methodClassNames, int callerCount, int[] callerOffsets,
+            int[] targets, int[] weights) {
+        SymbolTable methods = new SymbolTable();
+        SymbolTable classes = new SymbolTable();
+        this.methods = methods;
+        this.classes = classes;
+        for (String methodName : methodNames) {
+            methods.intern(methodName);
+        }
+        this.callerCount = callerCount;
+
+        int[] methodClasses = new int[methodNames.length];
+        for (int m = 0; m < methodNames.length; m++) {
+            methodClasses[m] = methodClassNames[m] == null ? -1 : classes.intern(methodClassNames[m]);
+        }
+
+        this.methodClasses = IntBuffer.wrap(methodClasses);
+        this.offsets = IntBuffer.wrap(allOffsets(callerOffsets, callerCount, methodNames.length, targets.length));
+        this.targets = IntBuffer.wrap(targets);
+        this.weights = IntBuffer.wrap(weights);
+    }
+
+    // Graphe dont les tableaux sont déjà construits (instantané) : offsets a methods.size() + 1 entrées
+    public CompactCallGraph(Symbols methods, Symbols classes, int callerCount, IntBuffer methodClasses,
+            IntBuffer offsets, IntBuffer targets, IntBuffer weights) {
+        this.methods = methods;
+        this.classes = classes;
+        this.callerCount = callerCount;
+        this.methodClasses = methodClasses;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    public Symbols getMethods() {
+        return methods;
+    }
+
+    public Symbols getClasses() {
+        return classes;
+    }
+
+    public int methodCount() {
+        return methods.size();
+    }
+
+    // Vrai si la méthode est une clé du graphe d'appels d'origine (même sans appel sortant)
+    public boolean isCaller(int method) {
+        return method < callerCount;
+    }
+
+    public int classOf(int method) {
+        return methodClasses.get(method);
+    }
+
+    // Nombre de méthodes appelantes (identifiants 0 .. callerCount() - 1)
+    public int callerCount() {
+        return callerCount;
+    }
+
+    public int callCount() {
+        return targets.limit();
+    }
+
+    public int callStart(int method) {
+        return offsets.get(method);
+    }
+
+    public int callEnd(int method) {
+        return offsets.get(method + 1);
+    }
+
+    public int target(int i) {
+        return targets.get(i);
+    }
+
+    public int weight(int i) {
+        return weights.get(i);
+    }
+
+    // Les méthodes seulement appelées n'ont pas d'arcs sortants
+    private static int[] allOffsets(int[] callerOffsets, int callerCount, int methodCount, int edgeCount) {
+        int[] offsets = new int[methodCount + 1];
+        System.arraycopy(callerOffsets, 0, offsets, 0, callerCount + 1);
+        for (int m = callerCount + 1; m <= methodCount; m++) {
+            offsets[m] = edgeCount;
+        }
+        return offsets;
+    }
+}
@@ -1,18 +1,26 @@
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class CouplingCalculator {
 
-    private Map<String, List<String>> callGraph;
-    private Map<String, String> methodToClassMap;
+    private final CompactCallGraph callGraph;
+    private CouplingMatrix couplingMatrix;
 
     public CouplingCalculator(Map<String, List<String>> callGraph, Map<String, String> methodToClassMap) {
+        this(new CompactCallGraph(callGraph, methodToClassMap));
+    }
+
+    public CouplingCalculator(CompactCallGraph callGraph) {
         this.callGraph = callGraph;
-        this.methodToClassMap = methodToClassMap;
+    }
+
+    public CompactCallGraph getCallGraph() {
+        return callGraph;
     }
 
     // Calculate the coupling between two specific classes
@@ -20,109 +28,150 @@ public class CouplingCalculator {
         if (classA == null || classB == null) {
             throw new IllegalArgumentException("Class names cannot be null");
         }
+        // The matrix is built once, every later pair is an O(1) lookup
+        return calculateCouplingMatrix().getCoupling(classA, classB);
+    }
 
-        int relationCount = 0; // Number of relations between methods of class A and class B
-        int totalRelations = 0; // Total number of binary relations between methods of any two classes
+    // Calculate the normalized coupling between all class pairs in a single pass
+    public CouplingMatrix calculateCouplingMatrix() {
+        if (couplingMatrix == null) {
+            couplingMatrix = new CouplingMatrix(callGraph);
+        }
+        return couplingMatrix;
+    }
 
-        // Count relations between classA and classB
-        for (Map.Entry<String, List<String>> entry : callGraph.entrySet()) {
-            String callingMethod = entry.getKey();
-            String callingClass = methodToClassMap.get(callingMethod);
-            List<String> calledMethods = entry.getValue();
+    // Calculate weighted coupling between all classes
+    public WeightedCouplingGraph calculateWeightedCoupling() {
+        return calculateWeightedCoupling(new CouplingLayers(), CouplingLayers.defaultWeights());
+    }
 
-            if (callingClass == null) {
-                continue; // Skip this method if the calling class is not found
+    // Combine the call layer with the other relation layers, each multiplied by its weight.
+    // Edges are summed in a primitive map keyed by class pair: nothing is allocated per call edge.
+    public WeightedCouplingGraph calculateWeightedCoupling(CouplingLayers relations, int[] weights) {
+        Symbols callClasses = callGraph.getClasses();
+        SymbolTable classes = new SymbolTable(); // Classes in order of first appearance
+        int[] classIds = new int[callClasses.size()]; // Call graph class -> id in classes, -1 if not seen yet
+        Arrays.fill(classIds, -1);
+        BitSet isSource = new BitSet();
+        List<String> sourceClasses = new ArrayList<>(); // Classes with outgoing relations: the keys of the graph
+        LongIntMap edges = new LongIntMap(Math.max(16, callClasses.size() * 4));
+
+        int callWeight = weights[CouplingLayers.Kind.CALL.ordinal()];
+        for (int callingMethod = 0; callingMethod < callGraph.methodCount(); callingMethod++) {
+            // Retrieve the calling class (only methods with outgoing calls are callers)
+            int callingClass = callGraph.classOf(callingMethod);
+            if (callingClass < 0 || !callGraph.isCaller(callingMethod)) {
+                continue; // Skip if the calling class is not found
+            }
+            int source = classId(callingClass, callClasses, classes, classIds);
+            if (!isSource.get(source)) {
+                isSource.set(source);
+                sourceClasses.add(classes.nameOf(source));
+            }
+            if (callWeight == 0) {
+                continue; // The class stays in the graph, without call edges
             }
 
-            for (String calledMethod : calledMethods) {
-                String calledClass = methodToClassMap.get(calledMethod);
-
-                if (calledClass == null) {
-                    continue; // Skip if called class is not found
+            // For each called method
+            for (int i = callGraph.callStart(callingMethod); i < callGraph.callEnd(callingMethod); i++) {
+                int calledClass = callGraph.classOf(callGraph.target(i));
+                if (calledClass < 0 || calledClass == callingClass) {
+                    continue; // Ignore if called class is not found or self-calls
                 }
 
-                // Count relations between classA and classB
-                if (callingClass.equals(classA) && calledClass.equals(classB)) {
-                    relationCount++;
+                // Increment the relation count
+                int target = classId(calledClass, callClasses, classes, classIds);
+                edges.add(LongIntMap.pair(source, target), callGraph.weight(i) * callWeight);
+            }
+        }
+
+        for (Map.Entry<String, Map<String, int[]>> entry : relations.getCounts().entrySet()) {
+            for (Map.Entry<String, int[]> relation : entry.getValue().entrySet()) {
+                int weight = 0;
+                for (CouplingLayers.Kind kind : CouplingLayers.Kind.values()) {
+                    if (kind != CouplingLayers.Kind.CALL) {
+                        weight += weights[kind.ordinal()] * relation.getValue()[kind.ordinal()];
+                    }
+                }
+                if (weight == 0) {
+                    continue; // Layers with a zero weight add neither relations nor classes
                 }
 
-                // Count total relations (excluding self-calls)
-                if (!callingClass.equals(calledClass)) {
-                    totalRelations++;
+                int source = classes.intern(entry.getKey());
+                if (!isSource.get(source)) {
+                    isSource.set(source);
+                    sourceClasses.add(entry.getKey());
                 }
+                edges.add(LongIntMap.pair(source, classes.intern(relation.getKey())), weight);
             }
         }
-
-        // Return the coupling value
-        return totalRelations > 0 ? (double) relationCount / totalRelations : 0.0;
+        return orderedGraph(classes, sourceClasses, edges);
     }
 
-    // Calculate weighted coupling between all classes
-    public Map<String, Map<String, Integer>> calculateWeightedCoupling() {
-        Map<String, Map<String, Integer>> classCouplingGraph = new HashMap<>();
-
-        for (Map.Entry<String, List<String>> entry : callGraph.entrySet()) {
-            String callingMethod = entry.getKey();
-            List<String> calledMethods = entry.getValue();
-
-            // Retrieve the calling class
-            String callingClass = methodToClassMap.get(callingMethod);
-
-            if (callingClass == null) {
-                continue; // Skip if the calling class is not found
-            }
-
-            classCouplingGraph.putIfAbsent(callingClass, new HashMap<>());
-            Map<String, Integer> relations = classCouplingGraph.get(callingClass);
-
-            // For each called method
-            for (String calledMethod : calledMethods) {
-                String calledClass = methodToClassMap.get(calledMethod);
-
-                if (calledClass == null || calledClass.equals(callingClass)) {
-                    continue; // Ignore if called class is not found or self-calls
-                }
+    // The keys of the graph come first, in the iteration order a HashMap of them has: clustering walks the
+    // classes in this order to break ties, so its results are the same as with the former map-based graph
+    private static WeightedCouplingGraph orderedGraph(SymbolTable classes, List<String> sourceClasses,
+            LongIntMap edges) {
+        Map<String, Integer> sources = new HashMap<>();
+        for (String sourceClass : sourceClasses) {
+            sources.put(sourceClass, classes.idOf(sourceClass));
+        }
+        SymbolTable orderedClasses = new SymbolTable();
+        int[] newIds = new int[classes.size()];
+        for (int id : sources.values()) {
+            newIds[id] = orderedClasses.intern(classes.nameOf(id));
+        }
+        for (int id = 0; id < classes.size(); id++) {
+            newIds[id] = orderedClasses.intern(classes.nameOf(id));
+        }
 
-                // Increment the relation count
-                relations.put(calledClass, relations.getOrDefault(calledClass, 0) + 1);
+        LongIntMap orderedEdges = new LongIntMap(Math.max(16, edges.size()));
+        for (int slot = 0; slot < edges.capacity(); slot++) {
+            long key = edges.keyAt(slot);
+            if (key >= 0 && edges.valueAt(slot) != 0) { // A zero combined weight is not a coupling
+                int source = newIds[(int) (key >>> 32)];
+                int target = newIds[(int) key];
+                orderedEdges.add(LongIntMap.pair(source, target), edges.valueAt(slot));
             }
         }
+        return new WeightedCouplingGraph(orderedClasses, sources.size(), orderedEdges);
+    }
 
-        return classCouplingGraph;
+    private static int classId(int callClass, Symbols callClasses, SymbolTable classes, int[] classIds) {
+        int id = classIds[callClass];
+        if (id < 0) {
+            id = classes.intern(callClasses.nameOf(callClass));
+            classIds[callClass] = id;
+        }
+        return id;
     }
 
     // Display the weighted coupling graph
-    public void printWeightedCouplingGraph(Map<String, Map<String, Integer>> couplingGraph) {
+    public void printWeightedCouplingGraph(WeightedCouplingGraph couplingGraph) {
         System.out.println("\nWeighted coupling graph between all classes:");
-        for (Map.Entry<String, Map<String, Integer>> entry : couplingGraph.entrySet()) {
-            String callingClass = entry.getKey();
-            Map<String, Integer> relations = entry.getValue();
-
-            if (relations.isEmpty()) {
-                System.out.println(callingClass + " --(0)--> No calls");
+        Symbols classes = couplingGraph.getClasses();
+        for (int callingClass = 0; callingClass < couplingGraph.sourceCount(); callingClass++) {
+            String callingClassName = classes.nameOf(callingClass);
+            if (couplingGraph.edgeStart(callingClass) == couplingGraph.edgeEnd(callingClass)) {
+                System.out.println(callingClassName + " --(0)--> No calls");
             } else {
-                for (Map.Entry<String, Integer> relation : relations.entrySet()) {
-                    String calledClass = relation.getKey();
-                    int weight = relation.getValue();
-                    System.out.println(callingClass + " --(" + weight + ")--> " + calledClass);
+                for (int i = couplingGraph.edgeStart(callingClass); i < couplingGraph.edgeEnd(callingClass); i++) {
+                    String calledClass = classes.nameOf(couplingGraph.target(i));
+                    int weight = couplingGraph.edgeWeight(i);
+                    System.out.println(callingClassName + " --(" + weight + ")--> " + calledClass);
                 }
             }
         }
     }
 
     // Generate the DOT file
-    public void generateDotFile(Map<String, Map<String, Integer>> couplingGraph, String dotFilePath) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(dotFilePath))) {
-            writer.write("digraph G {\n");
-            for (Map.Entry<String, Map<String, Integer>> entry : couplingGraph.entrySet()) {
-                String callingClass = entry.getKey();
-                for (Map.Entry<String, Integer> relation : entry.getValue().entrySet()) {
-                    String calledClass = relation.getKey();
-                    int weight = relation.getValue();
-                    writer.write("    \"" + callingClass + "\" -> \"" + calledClass + "\" [label=\"" + weight + "\"];\n");
-                }
-            }
-            writer.write("}\n");
-        }
+    public void generateDotFile(WeightedCouplingGraph couplingGraph, String dotFilePath) throws IOException {
+        generateDotFile(couplingGraph, dotFilePath, new GraphExporter());
+    }
+
+    // Generate the DOT file, pruned according to the exporter's settings
+    public void generateDotFile(WeightedCouplingGraph couplingGraph, String dotFilePath,
+            GraphExporter exporter) throws IOException {
+        exporter.export(couplingGraph, dotFilePath, GraphExporter.Format.DOT);
     }
 }
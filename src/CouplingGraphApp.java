@@ -1,30 +1,53 @@
 
 import javax.swing.*;
 import java.awt.*;
-import java.io.File;
+import java.util.List;
 
 public class CouplingGraphApp extends JFrame {
-    public CouplingGraphApp(String imagePath) {
+    private static final long serialVersionUID = 1L;
+
+    public CouplingGraphApp(WeightedCouplingGraph graph, ForceDirectedLayout layout, List<String[]> merges) {
         setTitle("Graphe de Couplage");
-        setSize(800, 600);
+        setSize(1024, 768);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLayout(new BorderLayout());
 
-        // Créez un label pour afficher l'image
-        JLabel label = new JLabel();
-        ImageIcon icon = new ImageIcon(imagePath);
-        label.setIcon(icon);
-
-        // Ajoutez le label à la fenêtre
-        add(label, BorderLayout.CENTER);
-        setLocationRelativeTo(null); // Centrer la fenêtre
-    }
+        // Vue du graphe dessinée directement, avec les clusters du clustering hiérarchique
+        GraphView view = new GraphView(graph, layout, merges);
+        add(view, BorderLayout.CENTER);
 
-    public static void main(String[] args) {
-        // Exemple d'utilisation
-        SwingUtilities.invokeLater(() -> {
-            CouplingGraphApp app = new CouplingGraphApp("E:\\PDC\\Visitor Pattern\\coupling_graph.png");
-            app.setVisible(true);
+        // Barre d'outils : recherche d'une classe, coupe de la hiérarchie, recadrage
+        JToolBar toolBar = new JToolBar();
+        toolBar.setFloatable(false);
+        JTextField searchField = new JTextField(20);
+        JLabel status = new JLabel(" Glisser : déplacer - Molette : zoom - Double-clic : déplier un cluster"
+                + " - Clic droit : replier le cluster parent");
+        searchField.addActionListener(e -> {
+            if (!view.search(searchField.getText())) {
+                status.setText(" Classe introuvable : " + searchField.getText());
+            }
         });
+        toolBar.add(new JLabel("Classe : "));
+        toolBar.add(searchField);
+        toolBar.addSeparator();
+
+        JSpinner clusterCount = new JSpinner(new SpinnerNumberModel(10, 1, Math.max(1, graph.getClasses().size()), 1));
+        JButton collapseButton = new JButton("Replier");
+        collapseButton.addActionListener(e -> view.collapseTo((Integer) clusterCount.getValue()));
+        JButton expandButton = new JButton("Tout déplier");
+        expandButton.addActionListener(e -> view.expandAll());
+        toolBar.add(new JLabel("Clusters : "));
+        toolBar.add(clusterCount);
+        toolBar.add(collapseButton);
+        toolBar.add(expandButton);
+        toolBar.addSeparator();
+
+        JButton fitButton = new JButton("Ajuster");
+        fitButton.addActionListener(e -> view.fitToWindow());
+        toolBar.add(fitButton);
+
+        add(toolBar, BorderLayout.NORTH);
+        add(status, BorderLayout.SOUTH);
+        setLocationRelativeTo(null); // Centrer la fenêtre
     }
 }
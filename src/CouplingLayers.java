@@ -0,0 +1,133 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Relations entre classes relevées pendant le même parcours de l'AST que les appels : appels à super, accès
+// aux champs, références de types et héritage, comptés par type et par paire (classe source, classe cible).
+// Les appels de méthodes eux-mêmes viennent du graphe d'appels ; leur couche n'a ici qu'un poids.
+public class CouplingLayers {
+
+    public enum Kind {
+        CALL("call"), SUPER_CALL("super"), FIELD_ACCESS("field"), TYPE_REFERENCE("type"), INHERITANCE("inherit");
+
+        private final String optionName;
+
+        Kind(String optionName) {
+            this.optionName = optionName;
+        }
+
+        public String getOptionName() {
+            return optionName;
+        }
+    }
+
+    private static final int KINDS = Kind.values().length;
+
+    // Classe source -> classe cible -> nombre de relations par type (indice : ordinal du type)
+    private final Map<String, Map<String, int[]>> counts = new LinkedHashMap<>();
+    // Classe -> paquetage qui la déclare ("" pour le paquetage par défaut), les noms de classes étant simples
+    private final Map<String, String> packages = new LinkedHashMap<>();
+
+    public void add(Kind kind, String sourceClass, String targetClass) {
+        add(kind, sourceClass, targetClass, 1);
+    }
+
+    public void add(Kind kind, String sourceClass, String targetClass, int count) {
+        // get/put plutôt que computeIfAbsent : même ordre d'itération que l'analyse séquentielle
+        Map<String, int[]> relations = counts.get(sourceClass);
+        if (relations == null) {
+            relations = new LinkedHashMap<>();
+            counts.put(sourceClass, relations);
+        }
+        int[] values = relations.get(targetClass);
+        if (values == null) {
+            values = new int[KINDS];
+            relations.put(targetClass, values);
+        }
+        values[kind.ordinal()] += count;
+    }
+
+    public void setPackage(String className, String packageName) {
+        packages.put(className, packageName);
+    }
+
+    // Fusionner d'autres relations (contribution d'un fichier) dans celles-ci
+    public void addAll(CouplingLayers other) {
+        packages.putAll(other.packages);
+        for (Map.Entry<String, Map<String, int[]>> entry : other.counts.entrySet()) {
+            for (Map.Entry<String, int[]> relation : entry.getValue().entrySet()) {
+                int[] values = relation.getValue();
+                for (Kind kind : Kind.values()) {
+                    if (values[kind.ordinal()] != 0) {
+                        add(kind, entry.getKey(), relation.getKey(), values[kind.ordinal()]);
+                    }
+                }
+            }
+        }
+    }
+
+    public int getCount(Kind kind, String sourceClass, String targetClass) {
+        Map<String, int[]> relations = counts.get(sourceClass);
+        int[] values = relations == null ? null : relations.get(targetClass);
+        return values == null ? 0 : values[kind.ordinal()];
+    }
+
+    public Map<String, Map<String, int[]>> getCounts() {
+        return counts;
+    }
+
+    public Map<String, String> getPackages() {
+        return packages;
+    }
+
+    public boolean isEmpty() {
+        return counts.isEmpty();
+    }
+
+    // Poids par défaut : seuls les appels de méthodes comptent, comme le couplage historique
+    public static int[] defaultWeights() {
+        int[] weights = new int[KINDS];
+        weights[Kind.CALL.ordinal()] = 1;
+        return weights;
+    }
+
+    // Lire des poids de la forme "call=2,field=1,inherit=3" ; les types absents gardent leur poids par défaut.
+    // Les poids sont positifs ou nuls : la disposition (logarithme du poids) et le clustering le supposent.
+    public static int[] parseWeights(String spec) {
+        int[] weights = defaultWeights();
+        for (String item : spec.split(",")) {
+            int equals = item.indexOf('=');
+            Kind kind = equals < 0 ? null : kindOf(item.substring(0, equals).trim());
+            if (kind == null) {
+                throw new IllegalArgumentException("Poids invalide : " + item + " (types : "
+                        + Arrays.toString(optionNames()) + ")");
+            }
+            try {
+                weights[kind.ordinal()] = Integer.parseInt(item.substring(equals + 1).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Poids invalide : " + item);
+            }
+            if (weights[kind.ordinal()] < 0) {
+                throw new IllegalArgumentException("Poids négatif : " + item + " (les poids sont positifs ou nuls)");
+            }
+        }
+        return weights;
+    }
+
+    private static Kind kindOf(String optionName) {
+        for (Kind kind : Kind.values()) {
+            if (kind.optionName.equals(optionName)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    private static String[] optionNames() {
+        String[] names = new String[KINDS];
+        for (Kind kind : Kind.values()) {
+            names[kind.ordinal()] = kind.optionName;
+        }
+        return names;
+    }
+}
@@ -0,0 +1,74 @@
+
+// Normalized coupling between every pair of classes, computed in a single pass over the call graph.
+// Each lookup is O(1): relation counts are indexed by class pair and the shared denominator
+// (total number of relations between distinct classes) is computed once.
+public class CouplingMatrix {
+
+    public interface PairVisitor {
+        void visit(String classA, String classB, int relationCount, double coupling);
+    }
+
+    private final Symbols classes;
+    private final LongIntMap relationCounts; // (calling class, called class) -> number of calls
+    private final int totalRelations;
+
+    public CouplingMatrix(CompactCallGraph callGraph) {
+        this.classes = callGraph.getClasses();
+
+        LongIntMap counts = new LongIntMap(classes.size() * 4);
+        int total = 0;
+        for (int callingMethod = 0; callingMethod < callGraph.methodCount(); callingMethod++) {
+            int callingClass = callGraph.classOf(callingMethod);
+            if (callingClass < 0) {
+                continue; // Skip this method if the calling class is not found
+            }
+            for (int i = callGraph.callStart(callingMethod); i < callGraph.callEnd(callingMethod); i++) {
+                int calledClass = callGraph.classOf(callGraph.target(i));
+                if (calledClass < 0) {
+                    continue; // Skip if called class is not found
+                }
+                int weight = callGraph.weight(i);
+                counts.add(LongIntMap.pair(callingClass, calledClass), weight);
+                if (callingClass != calledClass) {
+                    total += weight; // Total relations exclude self-calls
+                }
+            }
+        }
+        this.relationCounts = counts;
+        this.totalRelations = total;
+    }
+
+    // Number of calls from methods of classA to methods of classB
+    public int getRelationCount(String classA, String classB) {
+        int a = classes.idOf(classA);
+        int b = classes.idOf(classB);
+        return a < 0 || b < 0 ? 0 : relationCounts.get(LongIntMap.pair(a, b));
+    }
+
+    // Same value as CouplingCalculator.calculateCouplingBetweenClasses(classA, classB)
+    public double getCoupling(String classA, String classB) {
+        return totalRelations > 0 ? (double) getRelationCount(classA, classB) / totalRelations : 0.0;
+    }
+
+    public int getTotalRelations() {
+        return totalRelations;
+    }
+
+    // Number of class pairs with at least one relation
+    public int getPairCount() {
+        return relationCounts.size();
+    }
+
+    // Visit every class pair with at least one relation (sparse iteration, unspecified order)
+    public void forEachPair(PairVisitor visitor) {
+        for (int slot = 0; slot < relationCounts.capacity(); slot++) {
+            long key = relationCounts.keyAt(slot);
+            if (key < 0) {
+                continue;
+            }
+            int relationCount = relationCounts.valueAt(slot);
+            double coupling = totalRelations > 0 ? (double) relationCount / totalRelations : 0.0;
+            visitor.visit(classes.nameOf((int) (key >>> 32)), classes.nameOf((int) key), relationCount, coupling);
+        }
+    }
+}
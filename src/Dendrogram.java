@@ -0,0 +1,214 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Dendrogramme du clustering hiérarchique : les classes (feuilles, dans l'ordre des clusters initiaux) et les
+// fusions dans l'ordre, chacune avec le couplage entre les deux clusters fusionnés et le couplage moyen du
+// cluster obtenu. Une coupe applique un préfixe des fusions avec un union-find, en O(N), sans refaire le
+// clustering. ModuleIdentifier choisit les mêmes paires que le clustering et s'arrête à la première fusion
+// refusée : cutAtAverageCoupling donne les mêmes modules pour n'importe quel CP.
+public class Dendrogram {
+    private static final int MAGIC = 0x44454E44; // "DEND"
+    private static final int VERSION = 1;
+
+    private final String[] leaves; // Rang -> classe ; un cluster garde le nom de son cluster conservé
+    private final int[] kept; // Par fusion : rang du cluster conservé
+    private final int[] absorbed; // Par fusion : rang du cluster absorbé
+    private final int[] couplings; // Par fusion : couplage entre les deux clusters (hauteur de la fusion)
+    private final double[] averageCouplings; // Par fusion : couplage moyen du cluster fusionné (critère du CP)
+    private int mergeCount;
+
+    public Dendrogram(String[] leaves) {
+        this.leaves = leaves.clone();
+        int capacity = Math.max(0, leaves.length - 1);
+        kept = new int[capacity];
+        absorbed = new int[capacity];
+        couplings = new int[capacity];
+        averageCouplings = new double[capacity];
+    }
+
+    // Enregistrer la fusion suivante (rangs des clusters, comme dans ClusteringEngine)
+    public void addMerge(int keptRank, int absorbedRank, int coupling, double averageCoupling) {
+        kept[mergeCount] = keptRank;
+        absorbed[mergeCount] = absorbedRank;
+        couplings[mergeCount] = coupling;
+        averageCouplings[mergeCount] = averageCoupling;
+        mergeCount++;
+    }
+
+    public int leafCount() {
+        return leaves.length;
+    }
+
+    public int mergeCount() {
+        return mergeCount;
+    }
+
+    public String leaf(int rank) {
+        return leaves[rank];
+    }
+
+    public int keptRank(int merge) {
+        return kept[merge];
+    }
+
+    public int absorbedRank(int merge) {
+        return absorbed[merge];
+    }
+
+    public int coupling(int merge) {
+        return couplings[merge];
+    }
+
+    public double averageCoupling(int merge) {
+        return averageCouplings[merge];
+    }
+
+    // Clusters après les merges premières fusions, indexés par le nom de leur cluster conservé
+    public Map<String, Set<String>> cutAfter(int merges) {
+        if (merges < 0 || merges > mergeCount) {
+            throw new IllegalArgumentException("Nombre de fusions invalide : " + merges);
+        }
+        int[] parents = new int[leaves.length];
+        for (int rank = 0; rank < parents.length; rank++) {
+            parents[rank] = rank;
+        }
+        for (int merge = 0; merge < merges; merge++) {
+            parents[absorbed[merge]] = kept[merge]; // Le cluster absorbé n'est plus jamais une racine
+        }
+        Map<String, Set<String>> clusters = new LinkedHashMap<>();
+        for (int rank = 0; rank < leaves.length; rank++) {
+            if (parents[rank] == rank) {
+                clusters.put(leaves[rank], new HashSet<>());
+            }
+        }
+        for (int rank = 0; rank < leaves.length; rank++) {
+            clusters.get(leaves[root(parents, rank)]).add(leaves[rank]);
+        }
+        return clusters;
+    }
+
+    // Au plus modules clusters (moins si le clustering s'est arrêté avant)
+    public Map<String, Set<String>> cutAtModuleCount(int modules) {
+        return cutAfter(Math.min(mergeCount, Math.max(0, leaves.length - Math.max(1, modules))));
+    }
+
+    // Fusions jusqu'à la première dont le couplage entre clusters est inférieur à minCoupling
+    public Map<String, Set<String>> cutAtHeight(int minCoupling) {
+        int merges = 0;
+        while (merges < mergeCount && couplings[merges] >= minCoupling) {
+            merges++;
+        }
+        return cutAfter(merges);
+    }
+
+    // Mêmes modules que ModuleIdentifier : au plus maxModules clusters restants, arrêt à la première fusion
+    // dont le couplage moyen serait inférieur au CP
+    public Map<String, Set<String>> cutAtAverageCoupling(double minCouplingAverage, int maxModules) {
+        int limit = Math.min(mergeCount, Math.max(0, leaves.length - maxModules));
+        int merges = 0;
+        while (merges < limit && averageCouplings[merges] >= minCouplingAverage) {
+            merges++;
+        }
+        return cutAfter(merges);
+    }
+
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(leaves.length);
+            for (String leaf : leaves) {
+                out.writeUTF(leaf);
+            }
+            out.writeInt(mergeCount);
+            for (int merge = 0; merge < mergeCount; merge++) {
+                out.writeInt(kept[merge]);
+                out.writeInt(absorbed[merge]);
+                out.writeInt(couplings[merge]);
+                out.writeDouble(averageCouplings[merge]);
+            }
+        }
+    }
+
+    public static Dendrogram load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Dendrogramme invalide : " + file);
+            }
+            int leafCount = in.readInt();
+            if (leafCount < 0 || leafCount > file.length() / 2) { // Chaque nom occupe au moins 2 octets
+                throw new IOException("Dendrogramme invalide : " + file);
+            }
+            String[] leaves = new String[leafCount];
+            for (int rank = 0; rank < leaves.length; rank++) {
+                leaves[rank] = in.readUTF();
+            }
+            Dendrogram dendrogram = new Dendrogram(leaves);
+            int merges = in.readInt();
+            if (merges < 0 || merges > dendrogram.kept.length) {
+                throw new IOException("Dendrogramme invalide : " + file);
+            }
+            for (int merge = 0; merge < merges; merge++) {
+                dendrogram.addMerge(in.readInt(), in.readInt(), in.readInt(), in.readDouble());
+            }
+            return dendrogram;
+        }
+    }
+
+    // Couper un dendrogramme enregistré (--dendrogram) sans refaire l'analyse, par exemple :
+    //   java -cp tp2-architecture.jar Dendrogram dendrogram.bin --cp 0.5 --cp 1 --modules 10
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage : Dendrogram <fichier> [--cp <valeur>] [--modules <n>] [--height <couplage>]...");
+            return;
+        }
+        Dendrogram dendrogram = load(new File(args[0]));
+        System.out.println(dendrogram.leafCount() + " classes, " + dendrogram.mergeCount() + " fusions");
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            Map<String, Set<String>> modules;
+            switch (args[i]) {
+            case "--cp":
+                modules = dendrogram.cutAtAverageCoupling(Double.parseDouble(args[i + 1]), dendrogram.leafCount() / 2);
+                break;
+            case "--modules":
+                modules = dendrogram.cutAtModuleCount(Integer.parseInt(args[i + 1]));
+                break;
+            case "--height":
+                modules = dendrogram.cutAtHeight(Integer.parseInt(args[i + 1]));
+                break;
+            default:
+                throw new IllegalArgumentException("Argument inconnu : " + args[i]);
+            }
+            System.out.println("\nCoupe " + args[i] + " " + args[i + 1] + " : " + modules.size() + " modules");
+            int module = 1;
+            for (Set<String> classes : modules.values()) {
+                System.out.println("Module " + module + ": " + classes);
+                module++;
+            }
+        }
+    }
+
+    private static int root(int[] parents, int rank) {
+        int root = rank;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        // Compression du chemin : chaque classe est ensuite à un pas de sa racine
+        while (parents[rank] != root) {
+            int next = parents[rank];
+            parents[rank] = root;
+            rank = next;
+        }
+        return root;
+    }
+}
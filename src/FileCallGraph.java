@@ -0,0 +1,66 @@
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Contribution d'un seul fichier au graphe d'appels, à l'association méthode-classe et aux autres relations
+// entre classes.
+// Les contributions sont fusionnées dans l'ordre des fichiers pour reproduire exactement
+// le résultat de l'analyse séquentielle.
+public class FileCallGraph {
+    private final Map<String, List<String>> callGraph = new LinkedHashMap<>();
+    private final Map<String, String> declaredMethods = new LinkedHashMap<>(); // put : la dernière déclaration gagne
+    private final Map<String, String> invokedMethods = new LinkedHashMap<>(); // putIfAbsent : le premier appel gagne
+    private final CouplingLayers relations = new CouplingLayers();
+    // Pour le cache : types déclarés par le fichier, et types des sources dont dépendent ses liaisons
+    // (avec leurs supertypes) ; le fichier doit être ré-analysé quand l'un d'eux change
+    private final Set<String> declaredClasses = new LinkedHashSet<>();
+    private final Set<String> dependencies = new LinkedHashSet<>();
+
+    public Map<String, List<String>> getCallGraph() {
+        return callGraph;
+    }
+
+    public Map<String, String> getDeclaredMethods() {
+        return declaredMethods;
+    }
+
+    public Map<String, String> getInvokedMethods() {
+        return invokedMethods;
+    }
+
+    public CouplingLayers getRelations() {
+        return relations;
+    }
+
+    public Set<String> getDeclaredClasses() {
+        return declaredClasses;
+    }
+
+    public Set<String> getDependencies() {
+        return dependencies;
+    }
+
+    // Fusionner cette contribution dans le graphe global
+    public void mergeInto(Map<String, List<String>> targetCallGraph, Map<String, String> targetMethodToClassMap,
+            CouplingLayers targetRelations) {
+        for (Map.Entry<String, List<String>> entry : callGraph.entrySet()) {
+            // get/put plutôt que computeIfAbsent : même ordre d'itération que l'analyse séquentielle
+            List<String> calledMethods = targetCallGraph.get(entry.getKey());
+            if (calledMethods == null) {
+                targetCallGraph.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            } else {
+                calledMethods.addAll(entry.getValue());
+            }
+        }
+        // Une déclaration écrase toujours, un appel n'associe que les méthodes encore inconnues
+        targetMethodToClassMap.putAll(declaredMethods);
+        for (Map.Entry<String, String> entry : invokedMethods.entrySet()) {
+            targetMethodToClassMap.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        targetRelations.addAll(relations);
+    }
+}
@@ -0,0 +1,299 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Disposition du graphe de couplage par forces (modèle de ForceAtlas2) : répulsion entre toutes les classes,
+// proportionnelle à leurs degrés et approchée par un quadtree de Barnes-Hut, attraction linéaire le long des
+// arcs selon leur poids, gravité vers le centre. Le nombre d'itérations est fixé, donc le temps de calcul
+// est en O(itérations * n log n).
+// Les forces sont calculées en parallèle, chaque classe indépendamment : le résultat ne dépend pas du
+// nombre de threads.
+public class ForceDirectedLayout {
+    private static final double THETA = 0.9; // Critère d'ouverture des cellules de Barnes-Hut
+    private static final double GRAVITY = 4;
+    private static final double MIN_CELL_SIZE = 1e-6; // Cellules plus petites : classes superposées agrégées
+    private static final int NODES_PER_TASK = 256;
+
+    private int iterations = 200;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private long seed = 42;
+
+    private WeightedCouplingGraph graph;
+    private double[] x;
+    private double[] y;
+    private double[] dispX;
+    private double[] dispY;
+    private double[] degreeMass; // Degré + 1 : les classes très couplées repoussent davantage
+    private final QuadTree tree = new QuadTree();
+
+    // Arbre des cellules stocké dans des tableaux, reconstruit à chaque itération
+    private static class QuadTree {
+        double[] originX = new double[64];
+        double[] originY = new double[64];
+        double[] size = new double[64];
+        double[] sumX = new double[64];
+        double[] sumY = new double[64];
+        double[] mass = new double[64];
+        int[] body = new int[64]; // Classe d'une feuille, -1 pour une cellule interne ou vide
+        int[] children = new int[256]; // 4 par cellule, 0 : absent (la racine n'est jamais un enfant)
+        int count;
+
+        void build(double[] x, double[] y, double[] weight, int n) {
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                minX = Math.min(minX, x[i]);
+                minY = Math.min(minY, y[i]);
+                maxX = Math.max(maxX, x[i]);
+                maxY = Math.max(maxY, y[i]);
+            }
+            count = 0;
+            newCell(minX, minY, Math.max(maxX - minX, maxY - minY) + MIN_CELL_SIZE);
+            for (int i = 0; i < n; i++) {
+                insert(i, x[i], y[i], weight[i], x, y, weight);
+            }
+        }
+
+        private void insert(int i, double px, double py, double w, double[] x, double[] y, double[] weight) {
+            int cell = 0;
+            while (true) {
+                if (mass[cell] == 0) {
+                    body[cell] = i;
+                    addMass(cell, px, py, w);
+                    return;
+                }
+                if (body[cell] >= 0) {
+                    if (size[cell] < MIN_CELL_SIZE) {
+                        addMass(cell, px, py, w);
+                        return;
+                    }
+                    // Transformer la feuille en cellule interne : descendre la classe qu'elle contenait
+                    int previous = body[cell];
+                    body[cell] = -1;
+                    int child = childFor(cell, x[previous], y[previous]);
+                    body[child] = previous;
+                    addMass(child, x[previous], y[previous], weight[previous]);
+                }
+                addMass(cell, px, py, w);
+                cell = childFor(cell, px, py);
+            }
+        }
+
+        // Masse et barycentre pondéré de la cellule
+        private void addMass(int cell, double px, double py, double w) {
+            mass[cell] += w;
+            sumX[cell] += px * w;
+            sumY[cell] += py * w;
+        }
+
+        // Sous-cellule contenant (px, py), créée au besoin
+        private int childFor(int cell, double px, double py) {
+            double half = size[cell] / 2;
+            int quadrant = 0;
+            double childX = originX[cell];
+            double childY = originY[cell];
+            if (px >= childX + half) {
+                quadrant |= 1;
+                childX += half;
+            }
+            if (py >= childY + half) {
+                quadrant |= 2;
+                childY += half;
+            }
+            int slot = 4 * cell + quadrant;
+            if (children[slot] == 0) {
+                int child = newCell(childX, childY, half);
+                children[slot] = child;
+            }
+            return children[slot];
+        }
+
+        private int newCell(double cellX, double cellY, double cellSize) {
+            if (count == mass.length) {
+                int capacity = count * 2;
+                originX = Arrays.copyOf(originX, capacity);
+                originY = Arrays.copyOf(originY, capacity);
+                size = Arrays.copyOf(size, capacity);
+                sumX = Arrays.copyOf(sumX, capacity);
+                sumY = Arrays.copyOf(sumY, capacity);
+                mass = Arrays.copyOf(mass, capacity);
+                body = Arrays.copyOf(body, capacity);
+                children = Arrays.copyOf(children, 4 * capacity);
+            }
+            int cell = count++;
+            originX[cell] = cellX;
+            originY[cell] = cellY;
+            size[cell] = cellSize;
+            sumX[cell] = 0;
+            sumY[cell] = 0;
+            mass[cell] = 0;
+            body[cell] = -1;
+            Arrays.fill(children, 4 * cell, 4 * cell + 4, 0);
+            return cell;
+        }
+    }
+
+    // Calcul des déplacements d'une tranche de classes
+    private class ForceTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        ForceTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= NODES_PER_TASK) {
+                computeDisplacements(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ForceTask(from, middle), new ForceTask(middle, to));
+        }
+    }
+
+    public void setIterations(int iterations) {
+        this.iterations = iterations;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void compute(WeightedCouplingGraph graph) {
+        this.graph = graph;
+        int n = graph.getClasses().size();
+        x = new double[n];
+        y = new double[n];
+        dispX = new double[n];
+        dispY = new double[n];
+        degreeMass = new double[n];
+        for (int i = 0; i < n; i++) {
+            degreeMass[i] = 1 + graph.neighbourEnd(i) - graph.neighbourStart(i);
+        }
+
+        // Position initiale aléatoire (reproductible) dans un carré d'aire n centré sur l'origine
+        double side = Math.sqrt(Math.max(n, 1));
+        Random random = new Random(seed);
+        for (int i = 0; i < n; i++) {
+            x[i] = (random.nextDouble() - 0.5) * side;
+            y[i] = (random.nextDouble() - 0.5) * side;
+        }
+        if (n < 2) {
+            return;
+        }
+
+        ForkJoinPool pool = parallelism > 1 && n > NODES_PER_TASK
+                ? new ForkJoinPool(parallelism, PipelineMetrics.forkJoinThreadFactory(), null, false) : null;
+        try {
+            double initialTemperature = side / 10;
+            for (int iteration = 0; iteration < iterations; iteration++) {
+                tree.build(x, y, degreeMass, n);
+                if (pool != null) {
+                    pool.invoke(new ForceTask(0, n));
+                } else {
+                    computeDisplacements(0, n);
+                }
+                // Refroidissement linéaire : le déplacement maximal décroît jusqu'à presque 0
+                double temperature = initialTemperature * (1 - (double) iteration / iterations) + 0.01;
+                for (int i = 0; i < n; i++) {
+                    double length = Math.sqrt(dispX[i] * dispX[i] + dispY[i] * dispY[i]);
+                    if (length > 0) {
+                        double step = Math.min(length, temperature) / length;
+                        x[i] += dispX[i] * step;
+                        y[i] += dispY[i] * step;
+                    }
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    public double[] getX() {
+        return x;
+    }
+
+    public double[] getY() {
+        return y;
+    }
+
+    private void computeDisplacements(int from, int to) {
+        int[] stack = new int[64];
+        for (int i = from; i < to; i++) {
+            stack = computeDisplacement(i, stack);
+        }
+    }
+
+    // Force résultante sur la classe i ; renvoie la pile de parcours (agrandie si nécessaire)
+    private int[] computeDisplacement(int i, int[] stack) {
+        double px = x[i];
+        double py = y[i];
+        double fx = 0;
+        double fy = 0;
+
+        // Répulsion m(i) m(c) / d, une cellule lointaine comptant comme une seule masse en son barycentre
+        double own = degreeMass[i];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int cell = stack[--top];
+            double mass = tree.mass[cell];
+            if (mass == 0 || tree.body[cell] == i) {
+                continue;
+            }
+            double dx = px - tree.sumX[cell] / mass;
+            double dy = py - tree.sumY[cell] / mass;
+            double d2 = dx * dx + dy * dy;
+            double size = tree.size[cell];
+            if (tree.body[cell] >= 0 || size * size < THETA * THETA * d2) {
+                if (d2 > 0) {
+                    fx += own * mass * dx / d2;
+                    fy += own * mass * dy / d2;
+                }
+                continue;
+            }
+            if (top + 4 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            for (int quadrant = 0; quadrant < 4; quadrant++) {
+                int child = tree.children[4 * cell + quadrant];
+                if (child != 0) {
+                    stack[top++] = child;
+                }
+            }
+        }
+
+        // Attraction proportionnelle à la distance le long des arcs, renforcée par le logarithme du couplage
+        for (int e = graph.neighbourStart(i); e < graph.neighbourEnd(i); e++) {
+            int j = graph.neighbour(e);
+            double factor = 1 + Math.log(graph.neighbourWeight(e));
+            fx += (x[j] - px) * factor;
+            fy += (y[j] - py) * factor;
+        }
+
+        // Gravité vers l'origine : les composantes non connexes ne s'éloignent pas indéfiniment
+        double distance = Math.sqrt(px * px + py * py);
+        if (distance > 0) {
+            fx -= GRAVITY * own * px / distance;
+            fy -= GRAVITY * own * py / distance;
+        }
+
+        dispX[i] = fx;
+        dispY[i] = fy;
+        return stack;
+    }
+}
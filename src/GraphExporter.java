@@ -0,0 +1,299 @@
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+// Export du graphe de couplage en DOT, GraphML ou JSON, écrit au fil de l'eau sans construire le document
+// en mémoire. Options d'élagage pour les grands graphes : poids minimum des arcs, K arcs les plus lourds
+// par classe, et regroupement des classes par paquetage.
+public class GraphExporter {
+
+    public enum Format {
+        DOT("dot"), GRAPHML("graphml"), JSON("json");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private interface EdgeVisitor<E extends Exception> {
+        void visit(int callingClass, int calledClass, int weight) throws E;
+    }
+
+    private static final String DEFAULT_PACKAGE = "(default)";
+
+    private int minWeight = 1;
+    private int topK; // 0 : tous les arcs
+    private boolean collapsePackages;
+    private Map<String, String> packages = new HashMap<>(); // Classe -> paquetage, relevé pendant l'analyse
+
+    public void setMinWeight(int minWeight) {
+        this.minWeight = minWeight;
+    }
+
+    public void setTopK(int topK) {
+        this.topK = topK;
+    }
+
+    public void setCollapsePackages(boolean collapsePackages) {
+        this.collapsePackages = collapsePackages;
+    }
+
+    // Les classes du graphe portent des noms simples : leur paquetage vient de l'analyse
+    public void setPackages(Map<String, String> packages) {
+        this.packages = packages;
+    }
+
+    public void export(WeightedCouplingGraph couplingGraph, String filePath, Format format) throws IOException {
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(filePath), StandardCharsets.UTF_8), 1 << 16)) {
+            export(couplingGraph, writer, format);
+        }
+    }
+
+    public void export(WeightedCouplingGraph couplingGraph, Writer writer, Format format) throws IOException {
+        WeightedCouplingGraph graph = collapsePackages ? collapseToPackages(couplingGraph) : couplingGraph;
+        switch (format) {
+        case DOT:
+            writeDot(graph, writer);
+            break;
+        case GRAPHML:
+            writeGraphMl(graph, writer);
+            break;
+        case JSON:
+            writeJson(graph, writer);
+            break;
+        }
+    }
+
+    // Graphe élagué selon les mêmes règles que l'export (pour le dessin du graphe) : les classes clés, puis
+    // les classes atteintes par un arc conservé. Sans élagage effectif, le graphe est retourné tel quel (un
+    // instantané projeté n'est pas copié dans le tas).
+    public WeightedCouplingGraph prune(WeightedCouplingGraph couplingGraph) {
+        WeightedCouplingGraph graph = collapsePackages ? collapseToPackages(couplingGraph) : couplingGraph;
+        if (keepsAllEdges(graph)) {
+            return graph;
+        }
+        SymbolTable classes = new SymbolTable();
+        for (int a = 0; a < graph.sourceCount(); a++) {
+            classes.intern(graph.getClasses().nameOf(a));
+        }
+        int[] ids = new int[graph.getClasses().size()]; // Identifiant dans le graphe élagué, -1 si absent
+        Arrays.fill(ids, -1);
+        for (int a = 0; a < graph.sourceCount(); a++) {
+            ids[a] = a;
+        }
+        final LongIntMap edges = new LongIntMap(16);
+        forEachEdge(graph, (callingClass, calledClass, weight) -> {
+            if (ids[calledClass] < 0) {
+                ids[calledClass] = classes.intern(graph.getClasses().nameOf(calledClass));
+            }
+            edges.add(LongIntMap.pair(callingClass, ids[calledClass]), weight);
+        });
+        return new WeightedCouplingGraph(classes, graph.sourceCount(), edges);
+    }
+
+    private void writeDot(WeightedCouplingGraph graph, final Writer writer) throws IOException {
+        final Symbols classes = graph.getClasses();
+        writer.write("digraph G {\n");
+        forEachEdge(graph, (callingClass, calledClass, weight) -> {
+            writer.write("    \"");
+            writer.write(escapeDot(classes.nameOf(callingClass)));
+            writer.write("\" -> \"");
+            writer.write(escapeDot(classes.nameOf(calledClass)));
+            writer.write("\" [label=\"");
+            writer.write(Integer.toString(weight));
+            writer.write("\"];\n");
+        });
+        writer.write("}\n");
+    }
+
+    private void writeGraphMl(WeightedCouplingGraph graph, final Writer writer) throws IOException {
+        final Symbols classes = graph.getClasses();
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+        writer.write("  <key id=\"weight\" for=\"edge\" attr.name=\"weight\" attr.type=\"int\"/>\n");
+        writer.write("  <graph id=\"G\" edgedefault=\"directed\">\n");
+        for (int node : nodes(graph)) {
+            writer.write("    <node id=\"");
+            writer.write(escapeXml(classes.nameOf(node)));
+            writer.write("\"/>\n");
+        }
+        forEachEdge(graph, (callingClass, calledClass, weight) -> {
+            writer.write("    <edge source=\"");
+            writer.write(escapeXml(classes.nameOf(callingClass)));
+            writer.write("\" target=\"");
+            writer.write(escapeXml(classes.nameOf(calledClass)));
+            writer.write("\"><data key=\"weight\">");
+            writer.write(Integer.toString(weight));
+            writer.write("</data></edge>\n");
+        });
+        writer.write("  </graph>\n");
+        writer.write("</graphml>\n");
+    }
+
+    private void writeJson(WeightedCouplingGraph graph, final Writer writer) throws IOException {
+        final Symbols classes = graph.getClasses();
+        writer.write("{\n  \"nodes\": [");
+        boolean first = true;
+        for (int node : nodes(graph)) {
+            writer.write(first ? "\n    " : ",\n    ");
+            writeJsonString(writer, classes.nameOf(node));
+            first = false;
+        }
+        writer.write("\n  ],\n  \"edges\": [");
+        final boolean[] firstEdge = { true };
+        forEachEdge(graph, (callingClass, calledClass, weight) -> {
+            writer.write(firstEdge[0] ? "\n    {\"source\": " : ",\n    {\"source\": ");
+            writeJsonString(writer, classes.nameOf(callingClass));
+            writer.write(", \"target\": ");
+            writeJsonString(writer, classes.nameOf(calledClass));
+            writer.write(", \"weight\": ");
+            writer.write(Integer.toString(weight));
+            writer.write("}");
+            firstEdge[0] = false;
+        });
+        writer.write("\n  ]\n}\n");
+    }
+
+    // Parcourir les arcs conservés après élagage, classe clé par classe clé ; avec topK, les arcs les plus
+    // lourds d'abord (à poids égal, dans l'ordre des voisins)
+    private <E extends Exception> void forEachEdge(WeightedCouplingGraph graph, EdgeVisitor<E> visitor) throws E {
+        long[] kept = new long[0];
+        for (int a = 0; a < graph.sourceCount(); a++) {
+            if (topK <= 0) {
+                for (int i = graph.edgeStart(a); i < graph.edgeEnd(a); i++) {
+                    if (graph.edgeWeight(i) >= minWeight) {
+                        visitor.visit(a, graph.target(i), graph.edgeWeight(i));
+                    }
+                }
+                continue;
+            }
+            // Poids opposé dans les bits de poids fort, position de l'arc dans les bits de poids faible
+            int count = 0;
+            kept = kept.length < graph.edgeEnd(a) - graph.edgeStart(a)
+                    ? new long[graph.edgeEnd(a) - graph.edgeStart(a)] : kept;
+            for (int i = graph.edgeStart(a); i < graph.edgeEnd(a); i++) {
+                if (graph.edgeWeight(i) >= minWeight) {
+                    kept[count++] = ((long) -graph.edgeWeight(i) << 32) | i;
+                }
+            }
+            Arrays.sort(kept, 0, count);
+            for (int k = 0; k < Math.min(topK, count); k++) {
+                int i = (int) kept[k];
+                visitor.visit(a, graph.target(i), graph.edgeWeight(i));
+            }
+        }
+    }
+
+    // Vrai si l'élagage ne retire aucun arc
+    private boolean keepsAllEdges(WeightedCouplingGraph graph) {
+        for (int a = 0; a < graph.sourceCount(); a++) {
+            if (topK > 0 && graph.edgeEnd(a) - graph.edgeStart(a) > topK) {
+                return false;
+            }
+            for (int i = graph.edgeStart(a); i < graph.edgeEnd(a); i++) {
+                if (graph.edgeWeight(i) < minWeight) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Noeuds du graphe exporté : classes clés, puis classes appelées par un arc conservé
+    private int[] nodes(WeightedCouplingGraph graph) {
+        final BitSet seen = new BitSet();
+        final int[][] nodes = { new int[Math.max(16, graph.sourceCount())] };
+        final int[] count = { 0 };
+        for (int a = 0; a < graph.sourceCount(); a++) {
+            seen.set(a);
+            nodes[0][count[0]++] = a;
+        }
+        forEachEdge(graph, (callingClass, calledClass, weight) -> {
+            if (!seen.get(calledClass)) {
+                seen.set(calledClass);
+                if (count[0] == nodes[0].length) {
+                    nodes[0] = Arrays.copyOf(nodes[0], count[0] * 2);
+                }
+                nodes[0][count[0]++] = calledClass;
+            }
+        });
+        return Arrays.copyOf(nodes[0], count[0]);
+    }
+
+    // Additionner les couplages entre paquetages ; les appels internes à un paquetage disparaissent.
+    // Les paquetages des classes clés sont les clés du graphe obtenu.
+    private WeightedCouplingGraph collapseToPackages(WeightedCouplingGraph couplingGraph) {
+        Symbols classes = couplingGraph.getClasses();
+        SymbolTable packageNames = new SymbolTable();
+        int[] packageOf = new int[classes.size()];
+        for (int a = 0; a < couplingGraph.sourceCount(); a++) {
+            packageOf[a] = packageNames.intern(packageOf(classes.nameOf(a)));
+        }
+        int sourcePackages = packageNames.size();
+        for (int a = couplingGraph.sourceCount(); a < classes.size(); a++) {
+            packageOf[a] = packageNames.intern(packageOf(classes.nameOf(a)));
+        }
+        LongIntMap edges = new LongIntMap(16);
+        for (int a = 0; a < couplingGraph.sourceCount(); a++) {
+            for (int i = couplingGraph.edgeStart(a); i < couplingGraph.edgeEnd(a); i++) {
+                int calledPackage = packageOf[couplingGraph.target(i)];
+                if (calledPackage != packageOf[a]) {
+                    edges.add(LongIntMap.pair(packageOf[a], calledPackage), couplingGraph.edgeWeight(i));
+                }
+            }
+        }
+        return new WeightedCouplingGraph(packageNames, sourcePackages, edges);
+    }
+
+    // Paquetage relevé à l'analyse ; à défaut, préfixe d'un nom qualifié
+    private String packageOf(String className) {
+        String packageName = packages.get(className);
+        if (packageName == null) {
+            int dot = className.lastIndexOf('.');
+            packageName = dot < 0 ? "" : className.substring(0, dot);
+        }
+        return packageName.isEmpty() ? DEFAULT_PACKAGE : packageName;
+    }
+
+    private static String escapeDot(String name) {
+        if (name.indexOf('"') < 0 && name.indexOf('\\') < 0) {
+            return name;
+        }
+        return name.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    static String escapeXml(String name) {
+        return name.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,243 @@
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import javax.imageio.ImageIO;
+
+// Dessin du graphe de couplage à partir d'une disposition calculée : image PNG (Java2D + ImageIO) ou
+// document SVG écrit au fil de l'eau. Remplace l'appel au programme dot de Graphviz.
+public class GraphRenderer {
+    private static final int PIXELS_PER_UNIT = 25; // Distance idéale entre deux classes voisines
+    private static final int MAX_IMAGE_SIZE = 4096;
+    private static final int MARGIN = 60;
+    private static final int NODE_RADIUS = 5;
+    private static final int MAX_EDGE_LABELS = 2000; // Au-delà, les poids des arcs ne sont plus affichés
+    private static final Color EDGE_COLOR = new Color(90, 90, 90, 140);
+    private static final Color NODE_COLOR = new Color(52, 101, 164);
+
+    private final WeightedCouplingGraph graph;
+    private final double[] x;
+    private final double[] y;
+    private final int width;
+    private final int height;
+    private final double scale;
+    private final double minX;
+    private final double minY;
+    private final boolean edgeLabels;
+
+    public GraphRenderer(WeightedCouplingGraph graph, ForceDirectedLayout layout) {
+        this.graph = graph;
+        this.x = layout.getX();
+        this.y = layout.getY();
+
+        // Mise à l'échelle de la disposition, bornée pour garder un temps de rendu et une mémoire prévisibles
+        double minX = 0;
+        double minY = 0;
+        double maxX = 0;
+        double maxY = 0;
+        if (x.length > 0) {
+            minX = maxX = x[0];
+            minY = maxY = y[0];
+        }
+        for (int i = 1; i < x.length; i++) {
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        double spanX = Math.max(maxX - minX, 1e-9);
+        double spanY = Math.max(maxY - minY, 1e-9);
+        int usable = MAX_IMAGE_SIZE - 2 * MARGIN;
+        this.scale = Math.min(PIXELS_PER_UNIT, Math.min(usable / spanX, usable / spanY));
+        this.minX = minX;
+        this.minY = minY;
+        this.width = (int) Math.ceil(spanX * scale) + 2 * MARGIN;
+        this.height = (int) Math.ceil(spanY * scale) + 2 * MARGIN;
+
+        int edgeCount = 0;
+        for (int a = 0; a < graph.getClasses().size(); a++) {
+            edgeCount += graph.edgeEnd(a) - graph.edgeStart(a);
+        }
+        this.edgeLabels = edgeCount <= MAX_EDGE_LABELS;
+    }
+
+    public BufferedImage render() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 11));
+
+            int n = graph.getClasses().size();
+            for (int a = 0; a < n; a++) {
+                for (int e = graph.edgeStart(a); e < graph.edgeEnd(a); e++) {
+                    int b = graph.target(e);
+                    if (b != a) {
+                        drawEdge(g, a, b, graph.edgeWeight(e));
+                    }
+                }
+            }
+
+            FontMetrics metrics = g.getFontMetrics();
+            for (int a = 0; a < n; a++) {
+                int px = (int) screenX(a);
+                int py = (int) screenY(a);
+                g.setColor(NODE_COLOR);
+                g.fillOval(px - NODE_RADIUS, py - NODE_RADIUS, 2 * NODE_RADIUS, 2 * NODE_RADIUS);
+                String name = graph.getClasses().nameOf(a);
+                g.setColor(Color.BLACK);
+                g.drawString(name, px - metrics.stringWidth(name) / 2, py - NODE_RADIUS - 3);
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    public void writePng(String imageFilePath) throws IOException {
+        ImageIO.write(render(), "png", new File(imageFilePath));
+    }
+
+    public void writeSvg(String svgFilePath) throws IOException {
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(svgFilePath), StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height
+                    + "\" font-family=\"sans-serif\" font-size=\"11\">\n");
+            writer.write("  <defs><marker id=\"arrow\" viewBox=\"0 0 10 10\" refX=\"10\" refY=\"5\" markerWidth=\"8\""
+                    + " markerHeight=\"8\" orient=\"auto-start-reverse\"><path d=\"M0,0 L10,5 L0,10 z\" fill=\"#5a5a5a\"/>"
+                    + "</marker></defs>\n");
+            writer.write("  <rect width=\"100%\" height=\"100%\" fill=\"white\"/>\n");
+
+            int n = graph.getClasses().size();
+            writer.write("  <g stroke=\"#5a5a5a\" stroke-opacity=\"0.55\" marker-end=\"url(#arrow)\">\n");
+            for (int a = 0; a < n; a++) {
+                for (int e = graph.edgeStart(a); e < graph.edgeEnd(a); e++) {
+                    int b = graph.target(e);
+                    if (b == a) {
+                        continue;
+                    }
+                    double[] line = clippedLine(a, b);
+                    writer.write("    <line x1=\"");
+                    writer.write(format(line[0]));
+                    writer.write("\" y1=\"");
+                    writer.write(format(line[1]));
+                    writer.write("\" x2=\"");
+                    writer.write(format(line[2]));
+                    writer.write("\" y2=\"");
+                    writer.write(format(line[3]));
+                    writer.write("\" stroke-width=\"");
+                    writer.write(format(strokeWidth(graph.edgeWeight(e))));
+                    writer.write("\"/>\n");
+                }
+            }
+            writer.write("  </g>\n");
+
+            if (edgeLabels) {
+                writer.write("  <g fill=\"#5a5a5a\" text-anchor=\"middle\">\n");
+                for (int a = 0; a < n; a++) {
+                    for (int e = graph.edgeStart(a); e < graph.edgeEnd(a); e++) {
+                        int b = graph.target(e);
+                        if (b == a) {
+                            continue;
+                        }
+                        writer.write("    <text x=\"");
+                        writer.write(format((screenX(a) + screenX(b)) / 2));
+                        writer.write("\" y=\"");
+                        writer.write(format((screenY(a) + screenY(b)) / 2));
+                        writer.write("\">");
+                        writer.write(Integer.toString(graph.edgeWeight(e)));
+                        writer.write("</text>\n");
+                    }
+                }
+                writer.write("  </g>\n");
+            }
+
+            writer.write("  <g text-anchor=\"middle\">\n");
+            for (int a = 0; a < n; a++) {
+                writer.write("    <circle cx=\"");
+                writer.write(format(screenX(a)));
+                writer.write("\" cy=\"");
+                writer.write(format(screenY(a)));
+                writer.write("\" r=\"" + NODE_RADIUS + "\" fill=\"#3465a4\"/><text x=\"");
+                writer.write(format(screenX(a)));
+                writer.write("\" y=\"");
+                writer.write(format(screenY(a) - NODE_RADIUS - 3));
+                writer.write("\">");
+                writer.write(GraphExporter.escapeXml(graph.getClasses().nameOf(a)));
+                writer.write("</text>\n");
+            }
+            writer.write("  </g>\n");
+            writer.write("</svg>\n");
+        }
+    }
+
+    private void drawEdge(Graphics2D g, int a, int b, int weight) {
+        double[] line = clippedLine(a, b);
+        g.setColor(EDGE_COLOR);
+        g.setStroke(new BasicStroke((float) strokeWidth(weight)));
+        g.draw(new Line2D.Double(line[0], line[1], line[2], line[3]));
+
+        // Pointe de flèche à l'extrémité de l'arc
+        double angle = Math.atan2(line[3] - line[1], line[2] - line[0]);
+        Path2D.Double head = new Path2D.Double();
+        head.moveTo(line[2], line[3]);
+        head.lineTo(line[2] - 9 * Math.cos(angle - 0.4), line[3] - 9 * Math.sin(angle - 0.4));
+        head.lineTo(line[2] - 9 * Math.cos(angle + 0.4), line[3] - 9 * Math.sin(angle + 0.4));
+        head.closePath();
+        g.fill(head);
+
+        if (edgeLabels) {
+            g.setColor(Color.DARK_GRAY);
+            g.drawString(Integer.toString(weight), (float) (line[0] + line[2]) / 2, (float) (line[1] + line[3]) / 2);
+        }
+    }
+
+    // Segment a -> b raccourci pour s'arrêter au bord du disque de b
+    private double[] clippedLine(int a, int b) {
+        double x1 = screenX(a);
+        double y1 = screenY(a);
+        double x2 = screenX(b);
+        double y2 = screenY(b);
+        double length = Math.hypot(x2 - x1, y2 - y1);
+        if (length > NODE_RADIUS) {
+            double ratio = (length - NODE_RADIUS) / length;
+            x2 = x1 + (x2 - x1) * ratio;
+            y2 = y1 + (y2 - y1) * ratio;
+        }
+        return new double[] { x1, y1, x2, y2 };
+    }
+
+    private static double strokeWidth(int weight) {
+        return 1 + Math.log(weight);
+    }
+
+    private double screenX(int a) {
+        return MARGIN + (x[a] - minX) * scale;
+    }
+
+    private double screenY(int a) {
+        return MARGIN + (y[a] - minY) * scale;
+    }
+
+    // Coordonnée (toujours positive) arrondie au dixième de pixel
+    private static String format(double value) {
+        long tenths = Math.round(value * 10);
+        return (tenths / 10) + "." + (tenths % 10);
+    }
+}
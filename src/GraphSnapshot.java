@@ -0,0 +1,280 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+// Instantané binaire des graphes extraits : graphe d'appels (méthodes, classe de chaque méthode, arcs CSR et
+// poids), graphe de couplage pondéré (classes, arcs et voisinages CSR) et paquetage de chaque classe.
+// Le fichier commence par un en-tête versionné et un répertoire (position et taille de chaque bloc), suivis
+// des blocs : tables de chaînes (UTF-8, positions et table de hachage) et tableaux d'entiers little-endian,
+// alignés sur 8 octets.
+// open projette chaque bloc en mémoire (FileChannel.map) : les graphes lisent directement les pages du
+// fichier, sans analyse ni copie dans le tas, et le système ne charge que les pages parcourues.
+// Un bloc est limité à 2 Go (taille d'une projection), soit 512 millions d'arcs.
+public class GraphSnapshot {
+    private static final int MAGIC = 0x47534E50; // "GSNP"
+    private static final int VERSION = 2; // 2 : paquetages des classes
+
+    // Blocs, dans l'ordre du répertoire ; une table de chaînes occupe trois blocs (positions, cases, octets)
+    private static final int METHOD_NAMES = 0;
+    private static final int CALL_CLASS_NAMES = 3;
+    private static final int METHOD_CLASSES = 6;
+    private static final int CALL_OFFSETS = 7;
+    private static final int CALL_TARGETS = 8;
+    private static final int CALL_WEIGHTS = 9;
+    private static final int CLASS_NAMES = 10;
+    private static final int EDGE_OFFSETS = 13;
+    private static final int EDGE_TARGETS = 14;
+    private static final int EDGE_WEIGHTS = 15;
+    private static final int NEIGHBOUR_OFFSETS = 16;
+    private static final int NEIGHBOURS = 17;
+    private static final int NEIGHBOUR_WEIGHTS = 18;
+    private static final int PACKAGE_NAMES = 19;
+    private static final int CLASS_PACKAGES = 22;
+    private static final int BLOCK_COUNT = 23;
+
+    // Magic, version, nombre de blocs, nombre d'appelants, nombre de classes clés, réservé ; puis le répertoire
+    private static final int HEADER_BYTES = 24;
+    private static final int DATA_START = HEADER_BYTES + BLOCK_COUNT * 16;
+
+    private final CompactCallGraph callGraph;
+    private final WeightedCouplingGraph couplingGraph;
+    private final MappedSymbolTable packageNames;
+    private final IntBuffer classPackages; // Paquetage de chaque classe du couplage, -1 s'il est inconnu
+
+    private GraphSnapshot(CompactCallGraph callGraph, WeightedCouplingGraph couplingGraph,
+            MappedSymbolTable packageNames, IntBuffer classPackages) {
+        this.callGraph = callGraph;
+        this.couplingGraph = couplingGraph;
+        this.packageNames = packageNames;
+        this.classPackages = classPackages;
+    }
+
+    public CompactCallGraph getCallGraph() {
+        return callGraph;
+    }
+
+    public WeightedCouplingGraph getCouplingGraph() {
+        return couplingGraph;
+    }
+
+    // Classe -> paquetage, reconstruit à la demande (seul le regroupement par paquetage s'en sert)
+    public Map<String, String> getPackages() {
+        Map<String, String> packages = new HashMap<>();
+        for (int id = 0; id < classPackages.limit(); id++) {
+            int packageId = classPackages.get(id);
+            if (packageId >= 0) {
+                packages.put(couplingGraph.getClasses().nameOf(id), packageNames.nameOf(packageId));
+            }
+        }
+        return packages;
+    }
+
+    // Écrire les deux graphes ; le fichier est remplacé en une fois, comme le cache du graphe d'appels
+    public static void write(File file, CompactCallGraph callGraph, WeightedCouplingGraph couplingGraph,
+            Map<String, String> packages) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        long[] directory = new long[BLOCK_COUNT * 2];
+        try (FileChannel channel = FileChannel.open(tmpFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BlockWriter out = new BlockWriter(channel, directory, DATA_START);
+            writeSymbols(out, METHOD_NAMES, callGraph.getMethods());
+            writeSymbols(out, CALL_CLASS_NAMES, callGraph.getClasses());
+            out.writeInts(METHOD_CLASSES, callGraph.methodCount(), callGraph::classOf);
+            out.writeInts(CALL_OFFSETS, callGraph.methodCount() + 1, callGraph::callStart);
+            out.writeInts(CALL_TARGETS, callGraph.callCount(), callGraph::target);
+            out.writeInts(CALL_WEIGHTS, callGraph.callCount(), callGraph::weight);
+
+            int classCount = couplingGraph.getClasses().size();
+            writeSymbols(out, CLASS_NAMES, couplingGraph.getClasses());
+            out.writeInts(EDGE_OFFSETS, classCount + 1, couplingGraph::edgeStart);
+            out.writeInts(EDGE_TARGETS, couplingGraph.edgeCount(), couplingGraph::target);
+            out.writeInts(EDGE_WEIGHTS, couplingGraph.edgeCount(), couplingGraph::edgeWeight);
+            int neighbourCount = couplingGraph.neighbourStart(classCount);
+            out.writeInts(NEIGHBOUR_OFFSETS, classCount + 1, couplingGraph::neighbourStart);
+            out.writeInts(NEIGHBOURS, neighbourCount, couplingGraph::neighbour);
+            out.writeInts(NEIGHBOUR_WEIGHTS, neighbourCount, couplingGraph::neighbourWeight);
+
+            SymbolTable packageNames = new SymbolTable();
+            int[] classPackages = new int[classCount];
+            for (int id = 0; id < classCount; id++) {
+                String packageName = packages.get(couplingGraph.getClasses().nameOf(id));
+                classPackages[id] = packageName == null ? -1 : packageNames.intern(packageName);
+            }
+            writeSymbols(out, PACKAGE_NAMES, packageNames);
+            out.writeInts(CLASS_PACKAGES, classCount, id -> classPackages[id]);
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(DATA_START).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(BLOCK_COUNT);
+            header.putInt(callGraph.callerCount()).putInt(couplingGraph.sourceCount()).putInt(0);
+            for (long value : directory) {
+                header.putLong(value);
+            }
+            header.flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Projeter l'instantané en mémoire ; seuls l'en-tête et la taille des blocs sont vérifiés
+    public static GraphSnapshot open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < DATA_START) {
+                throw new IOException("Instantané invalide : " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, DATA_START)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(8) != BLOCK_COUNT) {
+                throw new IOException("Instantané invalide : " + file);
+            }
+            int callerCount = header.getInt(12);
+            int sourceCount = header.getInt(16);
+
+            // Les projections restent valables après la fermeture du canal
+            ByteBuffer[] blocks = new ByteBuffer[BLOCK_COUNT];
+            for (int block = 0; block < BLOCK_COUNT; block++) {
+                long offset = header.getLong(HEADER_BYTES + block * 16);
+                long length = header.getLong(HEADER_BYTES + block * 16 + 8);
+                if (offset < DATA_START || length < 0 || length > Integer.MAX_VALUE || offset + length > size) {
+                    throw new IOException("Instantané invalide : " + file);
+                }
+                blocks[block] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            MappedSymbolTable methods = symbols(blocks, METHOD_NAMES);
+            MappedSymbolTable callClasses = symbols(blocks, CALL_CLASS_NAMES);
+            IntBuffer methodClasses = ints(blocks, METHOD_CLASSES);
+            IntBuffer callOffsets = ints(blocks, CALL_OFFSETS);
+            IntBuffer callTargets = ints(blocks, CALL_TARGETS);
+            IntBuffer callWeights = ints(blocks, CALL_WEIGHTS);
+            MappedSymbolTable classes = symbols(blocks, CLASS_NAMES);
+            IntBuffer edgeOffsets = ints(blocks, EDGE_OFFSETS);
+            IntBuffer edgeTargets = ints(blocks, EDGE_TARGETS);
+            IntBuffer edgeWeights = ints(blocks, EDGE_WEIGHTS);
+            IntBuffer neighbourOffsets = ints(blocks, NEIGHBOUR_OFFSETS);
+            IntBuffer neighbours = ints(blocks, NEIGHBOURS);
+            IntBuffer neighbourWeights = ints(blocks, NEIGHBOUR_WEIGHTS);
+            MappedSymbolTable packageNames = symbols(blocks, PACKAGE_NAMES);
+            IntBuffer classPackages = ints(blocks, CLASS_PACKAGES);
+            boolean consistent = callerCount >= 0 && callerCount <= methods.size()
+                    && methodClasses.limit() == methods.size() && callOffsets.limit() == methods.size() + 1
+                    && callWeights.limit() == callTargets.limit()
+                    && sourceCount >= 0 && sourceCount <= classes.size()
+                    && edgeOffsets.limit() == classes.size() + 1 && edgeWeights.limit() == edgeTargets.limit()
+                    && neighbourOffsets.limit() == classes.size() + 1
+                    && neighbourWeights.limit() == neighbours.limit()
+                    && classPackages.limit() == classes.size();
+            if (!consistent) {
+                throw new IOException("Instantané invalide : " + file);
+            }
+
+            CompactCallGraph callGraph = new CompactCallGraph(methods, callClasses, callerCount, methodClasses,
+                    callOffsets, callTargets, callWeights);
+            WeightedCouplingGraph couplingGraph = new WeightedCouplingGraph(classes, sourceCount, edgeOffsets,
+                    edgeTargets, edgeWeights, neighbourOffsets, neighbours, neighbourWeights);
+            return new GraphSnapshot(callGraph, couplingGraph, packageNames, classPackages);
+        }
+    }
+
+    // Noms encodés à la suite, puis leurs positions, puis la table de hachage de MappedSymbolTable
+    private static void writeSymbols(BlockWriter out, int firstBlock, Symbols symbols) throws IOException {
+        int[] offsets = new int[symbols.size() + 1];
+        out.begin(firstBlock + 2);
+        long start = out.position();
+        for (int id = 0; id < symbols.size(); id++) {
+            out.putBytes(symbols.nameOf(id).getBytes(StandardCharsets.UTF_8));
+            long length = out.position() - start;
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Table de chaînes trop volumineuse pour un instantané");
+            }
+            offsets[id + 1] = (int) length;
+        }
+        out.end(firstBlock + 2);
+        out.writeInts(firstBlock, offsets.length, id -> offsets[id]);
+        int[] slots = MappedSymbolTable.slotsOf(symbols);
+        out.writeInts(firstBlock + 1, slots.length, slot -> slots[slot]);
+    }
+
+    private static MappedSymbolTable symbols(ByteBuffer[] blocks, int firstBlock) {
+        return new MappedSymbolTable(ints(blocks, firstBlock), ints(blocks, firstBlock + 1), blocks[firstBlock + 2]);
+    }
+
+    private static IntBuffer ints(ByteBuffer[] blocks, int block) {
+        return blocks[block].asIntBuffer();
+    }
+
+    // Écriture séquentielle des blocs par un tampon little-endian ; le répertoire reçoit leur position et taille
+    private static final class BlockWriter {
+        private final FileChannel channel;
+        private final long[] directory;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        private long position; // Position dans le fichier du début du tampon
+
+        BlockWriter(FileChannel channel, long[] directory, long start) {
+            this.channel = channel;
+            this.directory = directory;
+            this.position = start;
+        }
+
+        long position() {
+            return position + buffer.position();
+        }
+
+        void begin(int block) throws IOException {
+            while (position() % 8 != 0) {
+                putBytes(new byte[1]);
+            }
+            directory[block * 2] = position();
+        }
+
+        void end(int block) {
+            directory[block * 2 + 1] = position() - directory[block * 2];
+        }
+
+        void writeInts(int block, int count, IntUnaryOperator values) throws IOException {
+            begin(block);
+            for (int i = 0; i < count; i++) {
+                if (buffer.remaining() < 4) {
+                    flush();
+                }
+                buffer.putInt(values.applyAsInt(i));
+            }
+            end(block);
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+        }
+    }
+}
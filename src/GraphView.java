@@ -0,0 +1,643 @@
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.Line2D;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+// Vue interactive du graphe de couplage, dessinée directement (pas d'image intermédiaire).
+// Les noeuds et les arcs visibles sont indexés dans des grilles uniformes : seul le contenu des cellules
+// couvertes par la zone à repeindre est parcouru. Le niveau de détail dépend du zoom (étiquettes, flèches,
+// poids) et un budget d'arcs par image ne garde que les plus lourds quand la vue en contient trop.
+// La hiérarchie du clustering est rejouée à partir de ses fusions : un cluster replié est dessiné comme un
+// seul noeud au barycentre de ses classes, et les arcs entre classes sont agrégés entre noeuds visibles.
+public class GraphView extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    private static final int NODE_RADIUS = 4;
+    private static final double LABEL_SCALE = 18; // Pixels par unité de disposition à partir desquels on étiquette
+    private static final double DETAIL_SCALE = 40; // Flèches et poids des arcs
+    private static final int MAX_EDGES_PER_FRAME = 20000;
+    private static final int MAX_LABELS_PER_FRAME = 1500;
+    private static final int MAX_GRID_SIDE = 512;
+    private static final Color EDGE_COLOR = new Color(90, 90, 90, 110);
+    private static final Color EDGE_OVERVIEW_COLOR = new Color(200, 200, 200);
+    private static final Color NODE_COLOR = new Color(52, 101, 164);
+    private static final Color CLUSTER_COLOR = new Color(206, 92, 0);
+    private static final Color HIGHLIGHT_COLOR = new Color(204, 0, 0);
+
+    private final WeightedCouplingGraph graph;
+    private final int leafCount;
+
+    // Arbre de la hiérarchie : feuilles 0 .. leafCount - 1 (classes du graphe), puis un noeud par fusion
+    private final int[] left;
+    private final int[] right;
+    private final int[] parent;
+    private final int[] memberCount;
+    private final String[] labels;
+    private final double[] x;
+    private final double[] y;
+    private final boolean[] expanded;
+
+    // Etat affiché : noeuds visibles de l'arbre et arcs agrégés entre eux
+    private final int[] representative;
+    private int[] visible = new int[0];
+    private int[] edgeFrom = new int[0];
+    private int[] edgeTo = new int[0];
+    private int[] edgeWeight = new int[0];
+    private GridIndex nodeIndex;
+    private GridIndex edgeIndex;
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    // Dédoublonnage des arcs présents dans plusieurs cellules, sans effacer de tableau à chaque image
+    private int[] edgeStamp = new int[0];
+    private int epoch;
+    private int[] frameEdges = new int[0];
+
+    // Transformation monde -> écran : écran = monde * scale + translation
+    private double scale = 1;
+    private double translateX;
+    private double translateY;
+    private boolean fitted;
+    private int searchedLeaf = -1; // Classe trouvée par la recherche
+    private int highlighted = -1; // Noeud visible qui la contient, recalculé à chaque repli ou dépli
+    private int maxVisibleRadius = NODE_RADIUS;
+
+    // Cellules d'une grille uniforme au format CSR : éléments de la cellule c = items[cellStart[c] .. cellStart[c + 1]]
+    private static final class GridIndex {
+        private interface CellEnumerator {
+            void cells(int item, IntConsumer sink);
+        }
+
+        final double originX;
+        final double originY;
+        final double cellSize;
+        final int columns;
+        final int rows;
+        int[] cellStart;
+        int[] items;
+
+        GridIndex(double minX, double minY, double maxX, double maxY, int itemCount) {
+            int side = Math.max(1, Math.min(MAX_GRID_SIDE, (int) Math.ceil(Math.sqrt(itemCount))));
+            this.cellSize = Math.max(Math.max(maxX - minX, maxY - minY) / side, 1e-9);
+            this.originX = minX;
+            this.originY = minY;
+            this.columns = (int) ((maxX - minX) / cellSize) + 1;
+            this.rows = (int) ((maxY - minY) / cellSize) + 1;
+        }
+
+        // Deux passes : compter les éléments de chaque cellule, puis les ranger
+        void build(int itemCount, CellEnumerator enumerator) {
+            final int[] counts = new int[columns * rows + 1];
+            for (int item = 0; item < itemCount; item++) {
+                enumerator.cells(item, cell -> counts[cell + 1]++);
+            }
+            for (int c = 0; c < columns * rows; c++) {
+                counts[c + 1] += counts[c];
+            }
+            cellStart = counts.clone();
+            items = new int[counts[columns * rows]];
+            final int[] next = counts;
+            for (int item = 0; item < itemCount; item++) {
+                final int current = item;
+                enumerator.cells(item, cell -> items[next[cell]++] = current);
+            }
+        }
+
+        int column(double worldX) {
+            return Math.max(0, Math.min(columns - 1, (int) Math.floor((worldX - originX) / cellSize)));
+        }
+
+        int row(double worldY) {
+            return Math.max(0, Math.min(rows - 1, (int) Math.floor((worldY - originY) / cellSize)));
+        }
+
+        // Cellules traversées par un segment (parcours d'Amanatides et Woo)
+        void segmentCells(double x1, double y1, double x2, double y2, IntConsumer sink) {
+            int cx = column(x1);
+            int cy = row(y1);
+            int endX = column(x2);
+            int endY = row(y2);
+            double gx = (x1 - originX) / cellSize;
+            double gy = (y1 - originY) / cellSize;
+            double dx = (x2 - x1) / cellSize;
+            double dy = (y2 - y1) / cellSize;
+            int stepX = endX > cx ? 1 : endX < cx ? -1 : 0;
+            int stepY = endY > cy ? 1 : endY < cy ? -1 : 0;
+            double tDeltaX = stepX != 0 ? 1 / Math.abs(dx) : Double.POSITIVE_INFINITY;
+            double tDeltaY = stepY != 0 ? 1 / Math.abs(dy) : Double.POSITIVE_INFINITY;
+            double tMaxX = stepX > 0 ? (cx + 1 - gx) / dx : stepX < 0 ? (gx - cx) / -dx : Double.POSITIVE_INFINITY;
+            double tMaxY = stepY > 0 ? (cy + 1 - gy) / dy : stepY < 0 ? (gy - cy) / -dy : Double.POSITIVE_INFINITY;
+            sink.accept(cy * columns + cx);
+            int remaining = Math.abs(endX - cx) + Math.abs(endY - cy);
+            for (int i = 0; i < remaining; i++) {
+                if (tMaxX < tMaxY) {
+                    cx += stepX;
+                    tMaxX += tDeltaX;
+                } else {
+                    cy += stepY;
+                    tMaxY += tDeltaY;
+                }
+                // Les erreurs d'arrondi ne doivent pas faire sortir de la grille
+                cx = Math.max(0, Math.min(columns - 1, cx));
+                cy = Math.max(0, Math.min(rows - 1, cy));
+                sink.accept(cy * columns + cx);
+            }
+        }
+    }
+
+    public GraphView(WeightedCouplingGraph graph, ForceDirectedLayout layout, List<String[]> merges) {
+        this.graph = graph;
+        this.leafCount = graph.getClasses().size();
+
+        // Rejouer les fusions du clustering pour construire l'arbre (les classes absentes du graphe sont ignorées)
+        int size = leafCount + merges.size();
+        left = new int[size];
+        right = new int[size];
+        parent = new int[size];
+        memberCount = new int[size];
+        labels = new String[size];
+        x = Arrays.copyOf(layout.getX(), size);
+        y = Arrays.copyOf(layout.getY(), size);
+        Arrays.fill(left, -1);
+        Arrays.fill(right, -1);
+        Arrays.fill(parent, -1);
+        Map<String, Integer> current = new HashMap<>();
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            memberCount[leaf] = 1;
+            labels[leaf] = graph.getClasses().nameOf(leaf);
+            current.put(labels[leaf], leaf);
+        }
+        int nodeCount = leafCount;
+        for (String[] merge : merges) {
+            Integer a = current.get(merge[0]);
+            Integer b = current.get(merge[1]);
+            if (a == null || b == null) {
+                continue;
+            }
+            int node = nodeCount++;
+            left[node] = a;
+            right[node] = b;
+            parent[a] = node;
+            parent[b] = node;
+            memberCount[node] = memberCount[a] + memberCount[b];
+            x[node] = (x[a] * memberCount[a] + x[b] * memberCount[b]) / memberCount[node];
+            y[node] = (y[a] * memberCount[a] + y[b] * memberCount[b]) / memberCount[node];
+            labels[node] = merge[0] + " (" + memberCount[node] + ")";
+            current.put(merge[0], node);
+            current.remove(merge[1]);
+        }
+        expanded = new boolean[nodeCount];
+        Arrays.fill(expanded, true);
+        representative = new int[leafCount];
+
+        double minX = 0;
+        double minY = 0;
+        double maxX = 1;
+        double maxY = 1;
+        if (leafCount > 0) {
+            minX = maxX = x[0];
+            minY = maxY = y[0];
+        }
+        for (int leaf = 1; leaf < leafCount; leaf++) {
+            minX = Math.min(minX, x[leaf]);
+            minY = Math.min(minY, y[leaf]);
+            maxX = Math.max(maxX, x[leaf]);
+            maxY = Math.max(maxY, y[leaf]);
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+
+        refresh();
+        installMouseHandlers();
+        setToolTipText("");
+        setBackground(Color.WHITE);
+        setOpaque(true);
+    }
+
+    // Nombre de noeuds de l'arbre (classes et clusters)
+    private int treeSize() {
+        return expanded.length;
+    }
+
+    public void expandAll() {
+        Arrays.fill(expanded, true);
+        refresh();
+    }
+
+    // Couper la hiérarchie en annulant les dernières fusions : clusterCount clusters par arbre
+    public void collapseTo(int clusterCount) {
+        int firstExpanded = treeSize() - Math.max(1, clusterCount) + 1;
+        for (int node = leafCount; node < treeSize(); node++) {
+            expanded[node] = node >= firstExpanded;
+        }
+        refresh();
+    }
+
+    // Centrer la vue sur la classe demandée (nom exact, sinon première classe qui contient le texte)
+    public boolean search(String query) {
+        String text = query.trim();
+        if (text.isEmpty()) {
+            return false;
+        }
+        int found = graph.getClasses().idOf(text);
+        if (found < 0) {
+            String lower = text.toLowerCase();
+            for (int leaf = 0; leaf < leafCount && found < 0; leaf++) {
+                if (labels[leaf].toLowerCase().contains(lower)) {
+                    found = leaf;
+                }
+            }
+        }
+        if (found < 0) {
+            return false;
+        }
+        for (int node = parent[found]; node >= 0; node = parent[node]) {
+            expanded[node] = true;
+        }
+        searchedLeaf = found;
+        refresh();
+        scale = Math.max(scale, LABEL_SCALE * 2);
+        translateX = getWidth() / 2.0 - x[found] * scale;
+        translateY = getHeight() / 2.0 - y[found] * scale;
+        repaint();
+        return true;
+    }
+
+    // Afficher tout le graphe dans la fenêtre
+    public void fitToWindow() {
+        int width = Math.max(getWidth(), 1);
+        int height = Math.max(getHeight(), 1);
+        double spanX = Math.max(maxX - minX, 1e-9);
+        double spanY = Math.max(maxY - minY, 1e-9);
+        scale = Math.min((width - 40) / spanX, (height - 40) / spanY);
+        if (scale <= 0) {
+            scale = 1;
+        }
+        translateX = (width - spanX * scale) / 2 - minX * scale;
+        translateY = (height - spanY * scale) / 2 - minY * scale;
+        repaint();
+    }
+
+    private void expand(int node) {
+        if (node >= leafCount) {
+            expanded[node] = true;
+            refresh();
+        }
+    }
+
+    private void collapseParent(int node) {
+        if (parent[node] >= 0) {
+            int cluster = parent[node];
+            expanded[cluster] = false;
+            refresh();
+        }
+    }
+
+    // Recalculer les noeuds visibles, les arcs agrégés et les index spatiaux après un changement de repli
+    private void refresh() {
+        int[] visibleNodes = new int[leafCount];
+        int visibleCount = 0;
+        int[] stack = new int[Math.max(16, treeSize())];
+        for (int root = 0; root < treeSize(); root++) {
+            if (parent[root] >= 0) {
+                continue;
+            }
+            int top = 0;
+            stack[top++] = root;
+            while (top > 0) {
+                int node = stack[--top];
+                if (node >= leafCount && expanded[node]) {
+                    stack[top++] = left[node];
+                    stack[top++] = right[node];
+                    continue;
+                }
+                visibleNodes[visibleCount++] = node;
+                assignRepresentative(node, node);
+            }
+        }
+        visible = Arrays.copyOf(visibleNodes, visibleCount);
+        maxVisibleRadius = NODE_RADIUS;
+        for (int node : visible) {
+            maxVisibleRadius = Math.max(maxVisibleRadius, radius(node));
+        }
+
+        // Arcs agrégés entre représentants (les arcs internes à un cluster replié disparaissent)
+        LongIntMap aggregated = new LongIntMap(16);
+        for (int a = 0; a < leafCount; a++) {
+            int ra = representative[a];
+            for (int e = graph.edgeStart(a); e < graph.edgeEnd(a); e++) {
+                int rb = representative[graph.target(e)];
+                if (ra != rb) {
+                    aggregated.add(LongIntMap.pair(ra, rb), graph.edgeWeight(e));
+                }
+            }
+        }
+        int edgeCount = aggregated.size();
+        edgeFrom = new int[edgeCount];
+        edgeTo = new int[edgeCount];
+        edgeWeight = new int[edgeCount];
+        int k = 0;
+        for (int slot = 0; slot < aggregated.capacity(); slot++) {
+            long key = aggregated.keyAt(slot);
+            if (key >= 0) {
+                edgeFrom[k] = (int) (key >>> 32);
+                edgeTo[k] = (int) key;
+                edgeWeight[k++] = aggregated.valueAt(slot);
+            }
+        }
+        edgeStamp = new int[edgeCount];
+        epoch = 0;
+
+        nodeIndex = new GridIndex(minX, minY, maxX, maxY, visible.length);
+        final GridIndex nodes = nodeIndex;
+        nodes.build(visible.length, (item, sink) -> {
+            int node = visible[item];
+            sink.accept(nodes.row(y[node]) * nodes.columns + nodes.column(x[node]));
+        });
+        edgeIndex = new GridIndex(minX, minY, maxX, maxY, visible.length);
+        final GridIndex edges = edgeIndex;
+        edges.build(edgeCount,
+                (item, sink) -> edges.segmentCells(x[edgeFrom[item]], y[edgeFrom[item]], x[edgeTo[item]], y[edgeTo[item]], sink));
+
+        highlighted = searchedLeaf >= 0 ? representative[searchedLeaf] : -1;
+        repaint();
+    }
+
+    private void assignRepresentative(int node, int shown) {
+        if (node < leafCount) {
+            representative[node] = shown;
+            return;
+        }
+        // Parcours itératif : la hiérarchie peut être très profonde (chaînes de fusions)
+        int[] stack = new int[memberCount[node]];
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0) {
+            int current = stack[--top];
+            if (current < leafCount) {
+                representative[current] = shown;
+            } else {
+                stack[top++] = left[current];
+                stack[top++] = right[current];
+            }
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        if (!fitted && getWidth() > 0) {
+            fitted = true;
+            fitToWindow();
+        }
+        Graphics2D g = (Graphics2D) graphics.create();
+        try {
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+            // Zone du monde couverte par la zone à repeindre, élargie de la taille des étiquettes
+            double margin = 60 / scale;
+            double worldMinX = (clip.x - translateX) / scale - margin;
+            double worldMinY = (clip.y - translateY) / scale - margin;
+            double worldMaxX = (clip.x + clip.width - translateX) / scale + margin;
+            double worldMaxY = (clip.y + clip.height - translateY) / scale + margin;
+
+            int edgeCount = collectVisibleEdges(worldMinX, worldMinY, worldMaxX, worldMaxY);
+            paintEdges(g, edgeCount);
+            paintNodes(g, worldMinX, worldMinY, worldMaxX, worldMaxY);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    // Arcs des cellules visibles, dédoublonnés ; au-delà du budget, seuls les plus lourds sont gardés
+    private int collectVisibleEdges(double worldMinX, double worldMinY, double worldMaxX, double worldMaxY) {
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(edgeStamp, 0);
+            epoch = 1;
+        }
+        int count = 0;
+        GridIndex index = edgeIndex;
+        for (int row = index.row(worldMinY); row <= index.row(worldMaxY); row++) {
+            for (int column = index.column(worldMinX); column <= index.column(worldMaxX); column++) {
+                int cell = row * index.columns + column;
+                for (int i = index.cellStart[cell]; i < index.cellStart[cell + 1]; i++) {
+                    int edge = index.items[i];
+                    if (edgeStamp[edge] != epoch) {
+                        edgeStamp[edge] = epoch;
+                        if (count == frameEdges.length) {
+                            frameEdges = Arrays.copyOf(frameEdges, Math.max(1024, count * 2));
+                        }
+                        frameEdges[count++] = edge;
+                    }
+                }
+            }
+        }
+        if (count <= MAX_EDGES_PER_FRAME) {
+            return count;
+        }
+        int[] weights = new int[count];
+        for (int i = 0; i < count; i++) {
+            weights[i] = edgeWeight[frameEdges[i]];
+        }
+        Arrays.sort(weights);
+        int cutoff = weights[count - MAX_EDGES_PER_FRAME];
+        int kept = 0;
+        for (int i = 0; i < count && kept < MAX_EDGES_PER_FRAME; i++) {
+            if (edgeWeight[frameEdges[i]] >= cutoff) {
+                frameEdges[kept++] = frameEdges[i];
+            }
+        }
+        return kept;
+    }
+
+    private void paintEdges(Graphics2D g, int edgeCount) {
+        boolean detailed = scale >= DETAIL_SCALE;
+        if (!detailed) {
+            // Vue d'ensemble : segments entiers opaques, le chemin de rendu le plus rapide de Java2D
+            g.setColor(EDGE_OVERVIEW_COLOR);
+            for (int i = 0; i < edgeCount; i++) {
+                int edge = frameEdges[i];
+                g.drawLine((int) screenX(edgeFrom[edge]), (int) screenY(edgeFrom[edge]),
+                        (int) screenX(edgeTo[edge]), (int) screenY(edgeTo[edge]));
+            }
+            return;
+        }
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(EDGE_COLOR);
+        BasicStroke thin = new BasicStroke(1);
+        Line2D.Double line = new Line2D.Double();
+        for (int i = 0; i < edgeCount; i++) {
+            int edge = frameEdges[i];
+            double x1 = screenX(edgeFrom[edge]);
+            double y1 = screenY(edgeFrom[edge]);
+            double x2 = screenX(edgeTo[edge]);
+            double y2 = screenY(edgeTo[edge]);
+            g.setStroke(new BasicStroke((float) (1 + Math.log(edgeWeight[edge]))));
+            line.setLine(x1, y1, x2, y2);
+            g.draw(line);
+
+            // Pointe de flèche et poids de l'arc
+            double angle = Math.atan2(y2 - y1, x2 - x1);
+            double tipX = x2 - Math.cos(angle) * radius(edgeTo[edge]);
+            double tipY = y2 - Math.sin(angle) * radius(edgeTo[edge]);
+            g.setStroke(thin);
+            line.setLine(tipX, tipY, tipX - 8 * Math.cos(angle - 0.4), tipY - 8 * Math.sin(angle - 0.4));
+            g.draw(line);
+            line.setLine(tipX, tipY, tipX - 8 * Math.cos(angle + 0.4), tipY - 8 * Math.sin(angle + 0.4));
+            g.draw(line);
+            g.drawString(Integer.toString(edgeWeight[edge]), (float) (x1 + x2) / 2, (float) (y1 + y2) / 2);
+        }
+    }
+
+    private void paintNodes(Graphics2D g, double worldMinX, double worldMinY, double worldMaxX, double worldMaxY) {
+        if (scale >= LABEL_SCALE) {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        }
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 11));
+        FontMetrics metrics = g.getFontMetrics();
+        int labelCount = 0;
+        GridIndex index = nodeIndex;
+        for (int row = index.row(worldMinY); row <= index.row(worldMaxY); row++) {
+            for (int column = index.column(worldMinX); column <= index.column(worldMaxX); column++) {
+                int cell = row * index.columns + column;
+                for (int i = index.cellStart[cell]; i < index.cellStart[cell + 1]; i++) {
+                    int node = visible[index.items[i]];
+                    int px = (int) screenX(node);
+                    int py = (int) screenY(node);
+                    int r = radius(node);
+                    g.setColor(node == highlighted ? HIGHLIGHT_COLOR : node >= leafCount ? CLUSTER_COLOR : NODE_COLOR);
+                    g.fillOval(px - r, py - r, 2 * r, 2 * r);
+
+                    // Étiquettes selon le zoom ; les clusters et la classe recherchée sont toujours nommés
+                    boolean label = node == highlighted || node >= leafCount || scale >= LABEL_SCALE;
+                    if (label && labelCount < MAX_LABELS_PER_FRAME) {
+                        labelCount++;
+                        g.setColor(Color.BLACK);
+                        g.drawString(labels[node], px - metrics.stringWidth(labels[node]) / 2, py - r - 3);
+                    }
+                }
+            }
+        }
+    }
+
+    private int radius(int node) {
+        // Croissance logarithmique : un cluster de plusieurs milliers de classes ne masque pas ses voisins
+        return node < leafCount ? NODE_RADIUS : NODE_RADIUS + (int) (3 * Math.log(memberCount[node]) / Math.log(2));
+    }
+
+    private double screenX(int node) {
+        return x[node] * scale + translateX;
+    }
+
+    private double screenY(int node) {
+        return y[node] * scale + translateY;
+    }
+
+    // Noeud visible sous le point (px, py) de l'écran, -1 s'il n'y en a pas
+    private int nodeAt(int px, int py) {
+        double worldX = (px - translateX) / scale;
+        double worldY = (py - translateY) / scale;
+        double reach = (maxVisibleRadius + 4) / scale;
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        GridIndex index = nodeIndex;
+        for (int row = index.row(worldY - reach); row <= index.row(worldY + reach); row++) {
+            for (int column = index.column(worldX - reach); column <= index.column(worldX + reach); column++) {
+                int cell = row * index.columns + column;
+                for (int i = index.cellStart[cell]; i < index.cellStart[cell + 1]; i++) {
+                    int node = visible[index.items[i]];
+                    double distance = Math.hypot(screenX(node) - px, screenY(node) - py);
+                    if (distance <= radius(node) + 4 && distance < bestDistance) {
+                        best = node;
+                        bestDistance = distance;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        int node = nodeAt(event.getX(), event.getY());
+        if (node < 0) {
+            return null;
+        }
+        return node < leafCount ? labels[node] : "Cluster " + labels[node] + " : double-clic pour déplier";
+    }
+
+    private void installMouseHandlers() {
+        MouseAdapter handler = new MouseAdapter() {
+            private int lastX;
+            private int lastY;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                lastX = e.getX();
+                lastY = e.getY();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                translateX += e.getX() - lastX;
+                translateY += e.getY() - lastY;
+                lastX = e.getX();
+                lastY = e.getY();
+                repaint();
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int node = nodeAt(e.getX(), e.getY());
+                if (node < 0) {
+                    return;
+                }
+                if (SwingUtilities.isRightMouseButton(e)) {
+                    collapseParent(node);
+                } else if (e.getClickCount() == 2) {
+                    expand(node);
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                // Zoom centré sur le pointeur
+                double factor = Math.pow(1.15, -e.getPreciseWheelRotation());
+                double worldX = (e.getX() - translateX) / scale;
+                double worldY = (e.getY() - translateY) / scale;
+                scale *= factor;
+                translateX = e.getX() - worldX * scale;
+                translateY = e.getY() - worldY * scale;
+                repaint();
+            }
+        };
+        addMouseListener(handler);
+        addMouseMotionListener(handler);
+        addMouseWheelListener(handler);
+    }
+}
@@ -1,84 +1,122 @@
 
+import java.io.PrintStream;
+import java.io.Writer;
 import java.util.*;
 
 public class HierarchicalClustering {
-    private Map<String, Map<String, Integer>> couplingGraph;
+    private WeightedCouplingGraph couplingGraph;
     private Map<String, Set<String>> clusters;
+    private ClusteringEngine engine;
+    private Dendrogram dendrogram; // Fusions dans l'ordre, avec leurs couplages
+    private boolean consoleTrace = true; // Afficher chaque étape (clusters courants après chaque fusion)
+    private Writer traceFile;
 
-    public HierarchicalClustering(Map<String, Map<String, Integer>> couplingGraph) {
+    public HierarchicalClustering(WeightedCouplingGraph couplingGraph) {
         this.couplingGraph = couplingGraph;
-        this.clusters = new HashMap<>();
+        this.clusters = initialClusters(couplingGraph);
+        List<String> clusterOrder = new ArrayList<>(clusters.keySet());
+        this.engine = new ClusteringEngine(this.couplingGraph, clusterOrder);
+        this.dendrogram = new Dendrogram(clusterOrder.toArray(new String[0]));
+    }
 
-        // Initialiser chaque classe comme un cluster individuel
-        for (String className : couplingGraph.keySet()) {
+    // Initialiser chaque classe comme un cluster individuel
+    private static Map<String, Set<String>> initialClusters(WeightedCouplingGraph couplingGraph) {
+        Map<String, Set<String>> clusters = new HashMap<>();
+        for (int classId = 0; classId < couplingGraph.sourceCount(); classId++) {
+            String className = couplingGraph.getClasses().nameOf(classId);
             Set<String> initialCluster = new HashSet<>();
             initialCluster.add(className);
             clusters.put(className, initialCluster);
         }
+        return clusters;
+    }
+
+    // Trace des étapes : console (false : seuls les clusters finaux sont affichés) et fichier (null : aucun)
+    public void setTrace(boolean console, Writer file) {
+        this.consoleTrace = console;
+        this.traceFile = file;
+    }
+
+    // Nombre de threads pour la recherche de la paire de clusters la plus couplée
+    public void setParallelism(int parallelism) {
+        engine.setParallelism(parallelism);
     }
 
     public void performClustering() {
+        // L'affichage des étapes est rejoué à partir des fusions par le thread de la trace
+        StepPrinter printer = consoleTrace ? new StepPrinter(initialClusters(couplingGraph)) : null;
+        StepTrace trace = new StepTrace("clustering", printer, traceFile);
         int step = 1;
         while (clusters.size() > 1) {
-            String[] closestPair = findClosestClusters();
+            int[] closestPair = engine.findClosestClusters();
             if (closestPair == null) break; // Si plus de couplage entre les clusters
 
-            System.out.println("Étape " + step + ": Fusion des clusters " + closestPair[0] + " et " + closestPair[1]);
+            String clusterA = engine.nameOf(closestPair[0]);
+            String clusterB = engine.nameOf(closestPair[1]);
 
-            // Fusionner les clusters et afficher l'état actuel
-            mergeClusters(closestPair[0], closestPair[1]);
-            printCurrentClusters();
+            // Fusionner les clusters, enregistrer la fusion dans le dendrogramme et tracer l'étape
+            int coupling = engine.coupling(closestPair[0], closestPair[1]);
+            double mergedCouplingAverage = engine.averageCouplingIfMerged(closestPair[0], closestPair[1]);
+            engine.merge(closestPair[0], closestPair[1]);
+            mergeClusters(clusterA, clusterB);
+            dendrogram.addMerge(closestPair[0], closestPair[1], coupling, mergedCouplingAverage);
+            trace.merge(step, clusterA, clusterB, engine.averageCoupling(closestPair[0]));
             step++;
         }
+        trace.close();
     }
 
-    // Trouver les deux clusters les plus couplés
-    private String[] findClosestClusters() {
-        String[] closestPair = null;
-        int maxCoupling = Integer.MIN_VALUE;
-
-        for (String clusterA : clusters.keySet()) {
-            for (String clusterB : clusters.keySet()) {
-                if (!clusterA.equals(clusterB)) {
-                    int coupling = calculateCouplingBetweenClusters(clusterA, clusterB);
-                    if (coupling > maxCoupling) {
-                        maxCoupling = coupling;
-                        closestPair = new String[] { clusterA, clusterB };
-                    }
-                }
-            }
-        }
-        return closestPair;
+    // Clusters courants, indexés par le nom de leur première classe
+    public Map<String, Set<String>> getClusters() {
+        return Collections.unmodifiableMap(clusters);
     }
 
-    // Calculer le couplage total entre deux clusters
-    private int calculateCouplingBetweenClusters(String clusterA, String clusterB) {
-        int totalCoupling = 0;
-        for (String classA : clusters.get(clusterA)) {
-            for (String classB : clusters.get(clusterB)) {
-                totalCoupling += couplingGraph.getOrDefault(classA, new HashMap<>()).getOrDefault(classB, 0);
-                totalCoupling += couplingGraph.getOrDefault(classB, new HashMap<>()).getOrDefault(classA, 0);
-            }
+    // Historique des fusions, qui décrit la hiérarchie complète des clusters : { cluster conservé, cluster absorbé }
+    public List<String[]> getMerges() {
+        List<String[]> merges = new ArrayList<>(dendrogram.mergeCount());
+        for (int merge = 0; merge < dendrogram.mergeCount(); merge++) {
+            merges.add(new String[] { dendrogram.leaf(dendrogram.keptRank(merge)),
+                    dendrogram.leaf(dendrogram.absorbedRank(merge)) });
         }
-        return totalCoupling;
+        return Collections.unmodifiableList(merges);
+    }
+
+    // Dendrogramme des fusions effectuées, à couper ou enregistrer sans refaire le clustering
+    public Dendrogram getDendrogram() {
+        return dendrogram;
     }
 
     // Fusionner deux clusters
     private void mergeClusters(String clusterA, String clusterB) {
+        mergeClusters(clusters, clusterA, clusterB);
+    }
+
+    private static void mergeClusters(Map<String, Set<String>> clusters, String clusterA, String clusterB) {
         Set<String> mergedCluster = new HashSet<>(clusters.get(clusterA));
         mergedCluster.addAll(clusters.get(clusterB));
         clusters.remove(clusterB);
         clusters.put(clusterA, mergedCluster);
     }
 
-    // Afficher l'état actuel des clusters
-    private void printCurrentClusters() {
-        int i = 1;
-        for (Set<String> cluster : clusters.values()) {
-            System.out.println("  Cluster " + i + ": " + cluster);
-            i++;
+    // Affichage des étapes : rejoue les fusions sur sa propre copie des clusters et affiche l'état actuel
+    private static final class StepPrinter implements StepTrace.Formatter {
+        private final Map<String, Set<String>> clusters;
+
+        StepPrinter(Map<String, Set<String>> clusters) {
+            this.clusters = clusters;
+        }
+
+        @Override
+        public void format(StepTrace.Event event, PrintStream out) {
+            out.println("Étape " + event.step + ": Fusion des clusters " + event.kept + " et " + event.absorbed);
+            mergeClusters(clusters, event.kept, event.absorbed);
+            int i = 1;
+            for (Set<String> cluster : clusters.values()) {
+                out.println("  Cluster " + i + ": " + cluster);
+                i++;
+            }
+            out.println("-------------");
         }
-        System.out.println("-------------");
     }
 
     public void printFinalClusters() {
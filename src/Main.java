@@ -1,4 +1,21 @@
 
+// Point d'entrée en ligne de commande : java -jar tp2-architecture.jar <racine des sources> [options]
 public class Main {
 
+    public static void main(String[] args) throws Exception {
+        AnalysisOptions options;
+        try {
+            options = AnalysisOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(AnalysisOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.daemonPort >= 0) {
+            new AnalysisDaemon(options).run();
+        } else {
+            Parser.analyze(options);
+        }
+    }
 }
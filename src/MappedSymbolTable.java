@@ -0,0 +1,80 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Table de symboles en lecture seule, lue dans un instantané projeté en mémoire (GraphSnapshot) : les noms
+// restent encodés en UTF-8 dans le fichier et sont décodés à la demande ; idOf consulte la table de hachage
+// à adressage ouvert écrite avec les noms (slots), sans rien reconstruire au chargement.
+public class MappedSymbolTable implements Symbols {
+    private final IntBuffer offsets; // Le nom i occupe les octets offsets[i] .. offsets[i + 1] - 1
+    private final IntBuffer slots; // Identifiant + 1 du nom rangé dans chaque case, 0 si la case est vide
+    private final ByteBuffer bytes;
+
+    public MappedSymbolTable(IntBuffer offsets, IntBuffer slots, ByteBuffer bytes) {
+        this.offsets = offsets;
+        this.slots = slots;
+        this.bytes = bytes;
+    }
+
+    @Override
+    public int idOf(String name) {
+        byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+        int mask = slots.limit() - 1;
+        for (int slot = slot(name.hashCode(), mask); ; slot = (slot + 1) & mask) {
+            int id = slots.get(slot) - 1;
+            if (id < 0) {
+                return -1;
+            }
+            if (matches(id, encoded)) {
+                return id;
+            }
+        }
+    }
+
+    @Override
+    public String nameOf(int id) {
+        int start = offsets.get(id);
+        byte[] encoded = new byte[offsets.get(id + 1) - start];
+        bytes.get(start, encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int size() {
+        return offsets.limit() - 1;
+    }
+
+    // Table de hachage des noms, à écrire avec eux : une puissance de deux au moins deux fois plus
+    // grande que le nombre de noms, pour que les sondages restent courts
+    public static int[] slotsOf(Symbols symbols) {
+        int capacity = Integer.highestOneBit(Math.max(1, symbols.size()) * 2 - 1) << 1;
+        int[] slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < symbols.size(); id++) {
+            int slot = slot(symbols.nameOf(id).hashCode(), mask);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+        return slots;
+    }
+
+    private boolean matches(int id, byte[] encoded) {
+        int start = offsets.get(id);
+        if (offsets.get(id + 1) - start != encoded.length) {
+            return false;
+        }
+        for (int i = 0; i < encoded.length; i++) {
+            if (bytes.get(start + i) != encoded[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // String.hashCode est spécifié : les cases calculées à l'écriture restent valables à la lecture
+    private static int slot(int hash, int mask) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
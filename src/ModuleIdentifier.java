@@ -1,136 +1,110 @@
 
+import java.io.PrintStream;
+import java.io.Writer;
 import java.util.*;
 
 public class ModuleIdentifier {
-    private Map<String, Map<String, Integer>> couplingGraph;
+    private WeightedCouplingGraph couplingGraph;
     private Map<String, Set<String>> clusters;
+    private ClusteringEngine engine;
     private int maxModules;
     private double minCouplingAverage;
+    private boolean consoleTrace = true; // Afficher chaque étape (couplage moyen des clusters après chaque fusion)
+    private Writer traceFile;
 
-    public ModuleIdentifier(Map<String, Map<String, Integer>> couplingGraph, int totalClasses, double cp) {
+    public ModuleIdentifier(WeightedCouplingGraph couplingGraph, int totalClasses, double cp) {
         this.couplingGraph = couplingGraph;
         this.clusters = new HashMap<>();
         this.maxModules = totalClasses / 2; // M/2 modules maximum
         this.minCouplingAverage = cp; // CP, le couplage minimum moyen par module
 
         // Initialiser chaque classe comme un cluster individuel
-        for (String className : couplingGraph.keySet()) {
+        for (int classId = 0; classId < couplingGraph.sourceCount(); classId++) {
+            String className = couplingGraph.getClasses().nameOf(classId);
             Set<String> initialCluster = new HashSet<>();
             initialCluster.add(className);
             clusters.put(className, initialCluster);
         }
+        this.engine = new ClusteringEngine(this.couplingGraph, new ArrayList<>(clusters.keySet()));
+    }
+
+    // Trace des étapes : console (false : seuls les modules finaux sont affichés) et fichier (null : aucun)
+    public void setTrace(boolean console, Writer file) {
+        this.consoleTrace = console;
+        this.traceFile = file;
+    }
+
+    // Nombre de threads pour la recherche de la paire de clusters la plus couplée
+    public void setParallelism(int parallelism) {
+        engine.setParallelism(parallelism);
     }
 
     public void identifyModules() {
+        // L'affichage des étapes est rejoué à partir des fusions par le thread de la trace
+        StepPrinter printer = consoleTrace ? new StepPrinter(clusters.keySet(), minCouplingAverage) : null;
+        StepTrace trace = new StepTrace("modules", printer, traceFile);
         int step = 1;
         while (clusters.size() > maxModules) {
-            String[] closestPair = findClosestClusters();
+            int[] closestPair = engine.findClosestClusters();
             if (closestPair == null) break;
 
-            Set<String> mergedCluster = new HashSet<>(clusters.get(closestPair[0]));
-            mergedCluster.addAll(clusters.get(closestPair[1]));
+            String clusterA = engine.nameOf(closestPair[0]);
+            String clusterB = engine.nameOf(closestPair[1]);
 
-            if (mergedCluster.size() > 1) {
-                double mergedCouplingAverage = calculateAverageCoupling(closestPair[0], closestPair[1]);
+            if (engine.sizeOf(closestPair[0]) + engine.sizeOf(closestPair[1]) > 1) {
+                double mergedCouplingAverage = engine.averageCouplingIfMerged(closestPair[0], closestPair[1]);
 
                 if (mergedCouplingAverage >= minCouplingAverage) {
-                    System.out.println("Étape " + step + ": Fusion des clusters " + closestPair[0] + " et " + closestPair[1]);
-                    mergeClusters(closestPair[0], closestPair[1]);
-                    printClusterCoupling(); // Afficher le couplage des clusters à chaque étape
+                    engine.merge(closestPair[0], closestPair[1]);
+                    mergeClusters(clusterA, clusterB);
+                    trace.merge(step, clusterA, clusterB, engine.averageCoupling(closestPair[0]));
                     step++;
                 } else {
-                    System.out.println("Étape " + step + ": Le couplage moyen " + mergedCouplingAverage + " est inférieur à la valeur minimale " + minCouplingAverage + ", donc fusion ignorée.");
+                    trace.reject(step, clusterA, clusterB, mergedCouplingAverage);
                     break;
                 }
             }
         }
+        trace.close();
     }
 
 
-    // Méthode pour afficher le couplage moyen des clusters à chaque étape
-    private void printClusterCoupling() {
-        System.out.println("Couplage moyen des clusters actuels :");
-        for (String clusterKey : clusters.keySet()) {
-            double averageCoupling = calculateAverageCouplingForCluster(clusterKey);
-            System.out.println("  Cluster " + clusterKey + " : Couplage moyen = " + averageCoupling);
-        }
-        System.out.println();
+    // Fusionner deux clusters
+    private void mergeClusters(String clusterA, String clusterB) {
+        Set<String> mergedCluster = new HashSet<>(clusters.get(clusterA));
+        mergedCluster.addAll(clusters.get(clusterB));
+        clusters.remove(clusterB);
+        clusters.put(clusterA, mergedCluster);
     }
 
+    // Affichage des étapes : rejoue les fusions sur sa propre copie des couplages moyens des clusters
+    // (même ordre d'itération que les clusters) et affiche le couplage moyen de chacun à chaque étape
+    private static final class StepPrinter implements StepTrace.Formatter {
+        private final Map<String, Double> averageCouplings = new HashMap<>();
+        private final double minCouplingAverage;
 
-    // Calculer la moyenne du couplage d'un cluster individuel
-    private double calculateAverageCouplingForCluster(String clusterKey) {
-        Set<String> cluster = clusters.get(clusterKey);
-        int totalCoupling = 0;
-        int totalPairs = 0;
-
-        for (String classA : cluster) {
-            for (String classB : cluster) {
-                if (!classA.equals(classB)) {
-                    totalCoupling += couplingGraph.getOrDefault(classA, new HashMap<>()).getOrDefault(classB, 0);
-                    totalPairs++;
-                }
-            }
-        }
-        return totalPairs == 0 ? 0 : (double) totalCoupling / totalPairs;
-    }
-
-    // Trouver les deux clusters les plus couplés
-    private String[] findClosestClusters() {
-        String[] closestPair = null;
-        int maxCoupling = Integer.MIN_VALUE;
-
-        for (String clusterA : clusters.keySet()) {
-            for (String clusterB : clusters.keySet()) {
-                if (!clusterA.equals(clusterB)) {
-                    int coupling = calculateCouplingBetweenClusters(clusterA, clusterB);
-                    if (coupling > maxCoupling) {
-                        maxCoupling = coupling;
-                        closestPair = new String[] { clusterA, clusterB };
-                    }
-                }
+        StepPrinter(Set<String> clusterKeys, double minCouplingAverage) {
+            for (String clusterKey : clusterKeys) {
+                averageCouplings.put(clusterKey, 0.0); // Une classe seule : couplage moyen nul
             }
+            this.minCouplingAverage = minCouplingAverage;
         }
-        return closestPair;
-    }
 
-    // Calculer le couplage total entre deux clusters
-    private int calculateCouplingBetweenClusters(String clusterA, String clusterB) {
-        int totalCoupling = 0;
-        for (String classA : clusters.get(clusterA)) {
-            for (String classB : clusters.get(clusterB)) {
-                totalCoupling += couplingGraph.getOrDefault(classA, new HashMap<>()).getOrDefault(classB, 0);
-                totalCoupling += couplingGraph.getOrDefault(classB, new HashMap<>()).getOrDefault(classA, 0);
+        @Override
+        public void format(StepTrace.Event event, PrintStream out) {
+            if (!event.merged) {
+                out.println("Étape " + event.step + ": Le couplage moyen " + event.coupling + " est inférieur à la valeur minimale " + minCouplingAverage + ", donc fusion ignorée.");
+                return;
             }
-        }
-        return totalCoupling;
-    }
-
-    // Calculer la moyenne du couplage d'un cluster fusionné
-    private double calculateAverageCoupling(String clusterA, String clusterB) {
-        Set<String> mergedCluster = new HashSet<>(clusters.get(clusterA));
-        mergedCluster.addAll(clusters.get(clusterB));
-
-        int totalCoupling = 0;
-        int totalPairs = 0;
-        for (String classA : mergedCluster) {
-            for (String classB : mergedCluster) {
-                if (!classA.equals(classB)) {
-                    totalCoupling += couplingGraph.getOrDefault(classA, new HashMap<>()).getOrDefault(classB, 0);
-                    totalCoupling += couplingGraph.getOrDefault(classB, new HashMap<>()).getOrDefault(classA, 0);
-                    totalPairs++;
-                }
+            out.println("Étape " + event.step + ": Fusion des clusters " + event.kept + " et " + event.absorbed);
+            averageCouplings.remove(event.absorbed);
+            averageCouplings.put(event.kept, event.coupling);
+            out.println("Couplage moyen des clusters actuels :");
+            for (Map.Entry<String, Double> cluster : averageCouplings.entrySet()) {
+                out.println("  Cluster " + cluster.getKey() + " : Couplage moyen = " + cluster.getValue());
             }
+            out.println();
         }
-        return totalPairs == 0 ? 0 : (double) totalCoupling / totalPairs;
-    }
-
-    // Fusionner deux clusters
-    private void mergeClusters(String clusterA, String clusterB) {
-        Set<String> mergedCluster = new HashSet<>(clusters.get(clusterA));
-        mergedCluster.addAll(clusters.get(clusterB));
-        clusters.remove(clusterB);
-        clusters.put(clusterA, mergedCluster);
     }
 
     // Afficher l'état actuel des clusters
@@ -144,6 +118,11 @@ public class ModuleIdentifier {
         System.out.println();
     }
 
+    // Modules courants, indexés par le nom de leur première classe
+    public Map<String, Set<String>> getModules() {
+        return Collections.unmodifiableMap(clusters);
+    }
+
     public void printFinalModules() {
         System.out.println("Modules finaux après identification:");
         int i = 1;
@@ -153,4 +132,3 @@ public class ModuleIdentifier {
         }
     }
 }
-
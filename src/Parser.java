@@ -1,92 +1,272 @@
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.swing.SwingUtilities;
 import org.apache.commons.io.FileUtils;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.EnumDeclaration;
+import org.eclipse.jdt.core.dom.FieldAccess;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.MethodInvocation;
 import org.eclipse.jdt.core.dom.Modifier;
-import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.PackageDeclaration;
+import org.eclipse.jdt.core.dom.ParameterizedType;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.SimpleType;
+import org.eclipse.jdt.core.dom.StructuralPropertyDescriptor;
+import org.eclipse.jdt.core.dom.SuperMethodInvocation;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
 
 public class Parser {
     public static final String projectPath = "E:\\PDC\\TP_PDC";
     public static final String projectSourcePath = projectPath + "\\src";
     public static final String jrePath = "C:\\Program Files\\Java\\jre1.8.0_51\\lib\\rt.jar";
+    private static final Map<String, String> COMPILER_OPTIONS = compilerOptions();
+
+    // Environnement de résolution des liaisons utilisé par tous les parseurs
+    private static String[] classpathEntries = { jrePath };
+    private static String[] sourcepathEntries = { projectSourcePath };
+    // Méthodes résolues pendant l'analyse en cours, par clé de liaison ; vidé à chaque changement d'environnement
+    private static ConcurrentHashMap<String, ResolvedMethod> resolvedMethods = new ConcurrentHashMap<>();
+    private static volatile PipelineMetrics metrics; // Mesures de l'analyse en cours (null hors de analyze)
 
     public static void main(String[] args) throws IOException, InterruptedException {
-        // Lire les fichiers java
-        final File folder = new File(projectSourcePath);
-        ArrayList<File> javaFiles = listJavaFilesForFolder(folder);
+        // Configuration historique : chemins du projet analysé et réglages passés par propriétés système
+        AnalysisOptions options = new AnalysisOptions();
+        options.sourceRoot = new File(projectSourcePath);
+        options.sourcepath = new String[] { projectSourcePath };
+        options.classpath = new String[] { jrePath };
+        options.outputDirectory = new File(projectPath);
+        // Nombre de threads d'analyse (-Dparser.threads=1 pour l'analyse séquentielle)
+        options.threads = Integer.getInteger("parser.threads", Runtime.getRuntime().availableProcessors());
+        // Mode batch (-Dparser.batch=true) : un environnement de résolution partagé par lot de fichiers
+        options.batch = Boolean.getBoolean("parser.batch");
+        // Mode incrémental (-Dparser.cache=fichier) : seuls les fichiers modifiés sont ré-analysés
+        String cachePath = System.getProperty("parser.cache");
+        options.cacheFile = cachePath == null ? null : new File(cachePath);
+        // Mode streaming (-Dparser.streaming=true) : appels agrégés au fil de l'analyse, mémoire bornée
+        options.streaming = Boolean.getBoolean("parser.streaming");
+        // Recherche parallèle de la paire la plus couplée (-Dclustering.threads=n)
+        options.clusteringThreads = Integer.getInteger("clustering.threads", 1);
+        options.classA = "Main"; // Remplacez par le nom de votre première classe
+        options.classB = "SimpleFile"; // Remplacez par le nom de votre deuxième classe
+        options.showGui = true;
 
-        Map<String, List<String>> callGraph = new HashMap<>(); // Stockage du graphe d'appels
-        Map<String, String> methodToClassMap = new HashMap<>(); // Association méthode-classe
+        analyze(options);
+    }
 
-        for (File fileEntry : javaFiles) {
-            String content = FileUtils.readFileToString(fileEntry, "UTF-8");
-            CompilationUnit parse = parse(content.toCharArray());
+    // Exécuter toute la chaîne : graphe d'appels, couplage, clustering, modules et graphe de couplage
+    public static void analyze(AnalysisOptions options) throws IOException, InterruptedException {
+        setEnvironment(options.classpath, options.sourcepath);
+        PipelineMetrics pipelineMetrics = new PipelineMetrics();
+        metrics = pipelineMetrics;
+        pipelineMetrics.beginStage("callgraph");
 
-            // Créez une instance de CallGraphVisitor pour construire le graphe
-            CallGraphVisitor visitor = new CallGraphVisitor(callGraph, methodToClassMap);
-            parse.accept(visitor);
-        }
+        // Lire les fichiers java (la racine peut être un jar en mode bytecode, un instantané avec --from-snapshot)
+        boolean fileRoot = options.bytecode || options.fromSnapshot;
+        ArrayList<File> javaFiles = fileRoot ? new ArrayList<>() : listJavaFilesForFolder(options.sourceRoot);
+        pipelineMetrics.setCount("files", javaFiles.size());
+
+        CouplingCalculator calculator;
+        CouplingLayers relations; // Relations entre classes autres que les appels
+        GraphSnapshot snapshot = null;
+        if (options.fromSnapshot) {
+            // Graphes projetés en mémoire depuis l'instantané : ni analyse ni calcul du couplage
+            snapshot = GraphSnapshot.open(options.sourceRoot);
+            CompactCallGraph callGraph = snapshot.getCallGraph();
+            System.out.println("Instantané : " + callGraph.methodCount() + " méthodes, " + callGraph.callCount()
+                    + " paires appelant-appelé");
+            pipelineMetrics.setCount("methods", callGraph.methodCount());
+            pipelineMetrics.setCount("calls", callGraph.callCount());
+            pipelineMetrics.beginStage("coupling");
+            calculator = new CouplingCalculator(callGraph);
+            relations = new CouplingLayers();
+        } else if (options.streaming && !options.bytecode) {
+            // Seuls les appels agrégés sont conservés : le graphe d'appels détaillé n'est pas imprimé
+            StreamingCallGraph streamingCallGraph = buildCallGraphStreaming(javaFiles, options.threads);
+            System.out.println("Graphe d'appels : " + streamingCallGraph.methodCount() + " méthodes, "
+                    + streamingCallGraph.pairCount() + " paires appelant-appelé, "
+                    + streamingCallGraph.callCount() + " appels");
+            pipelineMetrics.setCount("methods", streamingCallGraph.methodCount());
+            pipelineMetrics.setCount("calls", streamingCallGraph.callCount());
+            pipelineMetrics.beginStage("coupling");
+            calculator = new CouplingCalculator(streamingCallGraph.toCompactCallGraph());
+            relations = streamingCallGraph.getRelations();
+        } else {
+            Map<String, List<String>> callGraph = new HashMap<>(); // Stockage du graphe d'appels
+            Map<String, String> methodToClassMap = new HashMap<>(); // Association méthode-classe
+            relations = new CouplingLayers();
+
+            if (options.bytecode) {
+                BytecodeCallGraphExtractor.buildCallGraph(options.sourceRoot, callGraph, methodToClassMap, relations,
+                        options.threads);
+            } else if (options.cacheFile != null) {
+                buildCallGraphIncremental(javaFiles, callGraph, methodToClassMap, relations, options.cacheFile,
+                        options.threads);
+            } else if (options.batch) {
+                buildCallGraphBatch(javaFiles, callGraph, methodToClassMap, relations, options.threads);
+            } else {
+                buildCallGraph(javaFiles, callGraph, methodToClassMap, relations, options.threads);
+            }
+
+            long callCount = 0;
+            for (List<String> calledMethods : callGraph.values()) {
+                callCount += calledMethods.size();
+            }
+            pipelineMetrics.setCount("methods", methodToClassMap.size());
+            pipelineMetrics.setCount("calls", callCount);
 
-        // Imprimer le graphe d'appels
-        System.out.println("Graphe d'appels :");
-        for (Map.Entry<String, List<String>> entry : callGraph.entrySet()) {
-            System.out.println(entry.getKey() + " : " + entry.getValue());
+            // Imprimer le graphe d'appels
+            if (!options.quiet) {
+                pipelineMetrics.beginStage("print");
+                System.out.println("Graphe d'appels :");
+                for (Map.Entry<String, List<String>> entry : callGraph.entrySet()) {
+                    System.out.println(entry.getKey() + " : " + entry.getValue());
+                }
+            }
+
+            // Calculer et imprimer le graphe de couplage pondéré
+            pipelineMetrics.beginStage("coupling");
+            calculator = new CouplingCalculator(callGraph, methodToClassMap);
         }
 
         // Calculer et afficher le couplage entre deux classes spécifiques
-        String classA = "Main"; // Remplacez par le nom de votre première classe
-        String classB = "SimpleFile"; // Remplacez par le nom de votre deuxième classe
-
-        // Calculer et imprimer le graphe de couplage pondéré
-        CouplingCalculator calculator = new CouplingCalculator(callGraph, methodToClassMap);
-        
-        // Calculate coupling between the two classes
-        double coupling = calculator.calculateCouplingBetweenClasses(classA, classB);
-        System.out.println("\nCoupling(" + classA + ", " + classB + ") = " + coupling);
-        
-        Map<String, Map<String, Integer>> weightedCouplingGraph = calculator.calculateWeightedCoupling();
+        if (options.classA != null && options.classB != null) {
+            double coupling = calculator.calculateCouplingBetweenClasses(options.classA, options.classB);
+            System.out.println("\nCoupling(" + options.classA + ", " + options.classB + ") = " + coupling);
+        }
+
+        // Couplage combiné : chaque couche (appels, super, champs, types, héritage) multipliée par son poids ;
+        // un instantané contient le couplage calculé avec les poids de son analyse
+        WeightedCouplingGraph weightedCouplingGraph = snapshot != null ? snapshot.getCouplingGraph()
+                : calculator.calculateWeightedCoupling(relations, options.couplingWeights);
+        if (options.snapshotFile != null) {
+            GraphSnapshot.write(options.snapshotFile, calculator.getCallGraph(), weightedCouplingGraph,
+                    snapshot != null ? snapshot.getPackages() : relations.getPackages());
+        }
         calculator.printWeightedCouplingGraph(weightedCouplingGraph);
         System.out.println("\n");
+        pipelineMetrics.setCount("classes", weightedCouplingGraph.getClasses().size());
+        pipelineMetrics.setCount("couplingEdges", weightedCouplingGraph.edgeCount());
+
+        // Les étapes du clustering et des modules sont affichées (sauf --quiet) et écrites (--trace) par un
+        // thread de trace, hors des boucles de fusion
+        Writer traceWriter = options.traceFile == null ? null : new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(options.traceFile), StandardCharsets.UTF_8));
+        HierarchicalClustering clustering;
+        try {
+            // Exécuter le clustering hiérarchique
+            pipelineMetrics.beginStage("clustering");
+            clustering = new HierarchicalClustering(weightedCouplingGraph);
+            clustering.setParallelism(options.clusteringThreads);
+            clustering.setTrace(!options.quiet, traceWriter);
+            clustering.performClustering();
+            if (options.dendrogramFile != null) {
+                clustering.getDendrogram().save(options.dendrogramFile);
+            }
+
+            // Afficher les clusters finaux
+            clustering.printFinalClusters();
+
+            // Exécuter l'algorithme d'identification de modules
+            pipelineMetrics.beginStage("modules");
+            ModuleIdentifier moduleIdentifier = new ModuleIdentifier(weightedCouplingGraph,
+                    weightedCouplingGraph.sourceCount(), options.minCouplingAverage);
+            moduleIdentifier.setParallelism(options.clusteringThreads);
+            moduleIdentifier.setTrace(!options.quiet, traceWriter);
+            moduleIdentifier.identifyModules();
+
+            // Afficher les modules finaux
+            moduleIdentifier.printFinalModules();
+        } finally {
+            if (traceWriter != null) {
+                traceWriter.close();
+            }
+        }
+
+        // Générer le fichier DOT pour le graphe de couplage, élagué selon les options d'export
+        pipelineMetrics.beginStage("export");
+        options.outputDirectory.mkdirs();
+        GraphExporter exporter = new GraphExporter();
+        exporter.setMinWeight(options.minEdgeWeight);
+        exporter.setTopK(options.topEdgesPerClass);
+        exporter.setCollapsePackages(options.collapsePackages);
+        if (options.collapsePackages) {
+            // La table classe -> paquetage d'un instantané n'est reconstruite que pour le regroupement
+            exporter.setPackages(snapshot != null ? snapshot.getPackages() : relations.getPackages());
+        }
+        String dotFilePath = new File(options.outputDirectory, "coupling_graph.dot").getPath();
+        calculator.generateDotFile(weightedCouplingGraph, dotFilePath, exporter);
+        if (options.exportFormat != GraphExporter.Format.DOT) {
+            File exportFile = new File(options.outputDirectory,
+                    "coupling_graph." + options.exportFormat.getExtension());
+            exporter.export(weightedCouplingGraph, exportFile.getPath(), options.exportFormat);
+        }
 
-        // Exécuter le clustering hiérarchique
-        HierarchicalClustering clustering = new HierarchicalClustering(weightedCouplingGraph);
-        clustering.performClustering();
-        
-        // Afficher les clusters finaux
-        clustering.printFinalClusters();
-        
-        // Exécuter l'algorithme d'identification de modules
-        ModuleIdentifier moduleIdentifier = new ModuleIdentifier(weightedCouplingGraph, weightedCouplingGraph.size(), 1);
-        moduleIdentifier.identifyModules();
-        
-        // Afficher les modules finaux
-        moduleIdentifier.printFinalModules();
-
-        // Générer le fichier DOT pour le graphe de couplage
-        String dotFilePath = projectPath + "\\coupling_graph.dot";
-        calculator.generateDotFile(weightedCouplingGraph, dotFilePath);
-
-        // Convertir le fichier DOT en image
-        String imageFilePath = projectPath + "\\coupling_graph.png";
-        convertDotToImage(dotFilePath, imageFilePath);
-
-        // Afficher l'image dans une interface graphique
-        SwingUtilities.invokeLater(() -> {
-            CouplingGraphApp gui = new CouplingGraphApp(imageFilePath);
-            gui.setVisible(true);
-        });
+        // Disposer et dessiner le graphe exporté dans le processus (PNG et SVG), sans dépendre de Graphviz
+        pipelineMetrics.beginStage("layout");
+        WeightedCouplingGraph renderedGraph = exporter.prune(weightedCouplingGraph);
+        ForceDirectedLayout layout = new ForceDirectedLayout();
+        layout.setIterations(options.layoutIterations);
+        layout.setParallelism(options.threads);
+        layout.compute(renderedGraph);
+        pipelineMetrics.beginStage("render");
+        GraphRenderer renderer = new GraphRenderer(renderedGraph, layout);
+        String imageFilePath = new File(options.outputDirectory, "coupling_graph.png").getPath();
+        renderer.writePng(imageFilePath);
+        renderer.writeSvg(new File(options.outputDirectory, "coupling_graph.svg").getPath());
+        pipelineMetrics.endStage();
+        metrics = null;
+        if (options.metricsFile != null) {
+            pipelineMetrics.write(options.metricsFile);
+        }
+
+        // Afficher le graphe dans une interface graphique interactive
+        if (options.showGui) {
+            // Les fusions portent sur des classes : sans objet quand le graphe est regroupé par paquetage
+            List<String[]> merges = options.collapsePackages ? new ArrayList<>() : clustering.getMerges();
+            SwingUtilities.invokeLater(() -> {
+                CouplingGraphApp gui = new CouplingGraphApp(renderedGraph, layout, merges);
+                gui.setVisible(true);
+            });
+        }
+    }
+
+    // Définir les jars (JRE compris) et les racines de sources utilisés pour résoudre les liaisons
+    public static void setEnvironment(String[] classpath, String[] sourcepath) {
+        classpathEntries = classpath.clone();
+        sourcepathEntries = sourcepath.clone();
+        resolvedMethods = new ConcurrentHashMap<>();
     }
 
     public static ArrayList<File> listJavaFilesForFolder(final File folder) {
@@ -101,96 +281,590 @@ public class Parser {
         return javaFiles;
     }
 
+    // Construire le graphe d'appels, en parallèle si plusieurs threads sont demandés
+    public static void buildCallGraph(List<File> javaFiles, Map<String, List<String>> callGraph,
+            Map<String, String> methodToClassMap, CouplingLayers relations, int threads)
+            throws IOException, InterruptedException {
+        if (threads <= 1) {
+            for (File fileEntry : javaFiles) {
+                long start = System.nanoTime();
+                String content = FileUtils.readFileToString(fileEntry, "UTF-8");
+                CompilationUnit parse = parse(content.toCharArray());
+                long parsed = System.nanoTime();
+
+                // Créez une instance de CallGraphVisitor pour construire le graphe
+                CallGraphVisitor visitor = new CallGraphVisitor(callGraph, methodToClassMap, methodToClassMap,
+                        relations);
+                parse.accept(visitor);
+                recordFile(fileEntry, parsed - start, System.nanoTime() - parsed);
+            }
+            return;
+        }
+
+        // Chaque fichier produit un graphe partiel ; les graphes partiels sont fusionnés
+        // dans l'ordre des fichiers pour obtenir le même résultat que l'analyse séquentielle
+        ExecutorService executor = Executors.newFixedThreadPool(threads, PipelineMetrics.threadFactory());
+        try {
+            List<Future<FileCallGraph>> futures = new ArrayList<>(javaFiles.size());
+            for (File fileEntry : javaFiles) {
+                futures.add(executor.submit(() -> extractFileCallGraph(fileEntry)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                futures.get(i).get().mergeInto(callGraph, methodToClassMap, relations);
+                futures.set(i, null); // Libérer le graphe partiel dès qu'il est fusionné
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Construire le graphe d'appels agrégé à mémoire bornée : chaque fichier est analysé, fusionné dans
+    // l'ordre des fichiers puis libéré, avec au plus deux fichiers en cours par thread
+    public static StreamingCallGraph buildCallGraphStreaming(List<File> javaFiles, int threads)
+            throws IOException, InterruptedException {
+        StreamingCallGraph streamingCallGraph = new StreamingCallGraph();
+        if (threads <= 1) {
+            for (File fileEntry : javaFiles) {
+                streamingCallGraph.add(extractFileCallGraph(fileEntry));
+            }
+            return streamingCallGraph;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, PipelineMetrics.threadFactory());
+        try {
+            ArrayDeque<Future<FileCallGraph>> pending = new ArrayDeque<>();
+            int next = 0;
+            while (next < javaFiles.size() || !pending.isEmpty()) {
+                while (next < javaFiles.size() && pending.size() < 2 * threads) {
+                    File fileEntry = javaFiles.get(next++);
+                    pending.add(executor.submit(() -> extractFileCallGraph(fileEntry)));
+                }
+                streamingCallGraph.add(pending.poll().get());
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return streamingCallGraph;
+    }
+
+    // Analyser un fichier et retourner sa contribution au graphe d'appels
+    public static FileCallGraph extractFileCallGraph(File fileEntry) throws IOException {
+        long start = System.nanoTime();
+        String content = FileUtils.readFileToString(fileEntry, "UTF-8");
+        CompilationUnit parse = parse(content.toCharArray());
+        long parsed = System.nanoTime();
+
+        FileCallGraph fileCallGraph = new FileCallGraph();
+        parse.accept(new CallGraphVisitor(fileCallGraph));
+        recordFile(fileEntry, parsed - start, System.nanoTime() - parsed);
+        return fileCallGraph;
+    }
+
+    // Construire le graphe d'appels en mode batch : chaque worker analyse un lot de fichiers avec un seul
+    // appel à createASTs, toutes les unités du lot partageant le même environnement de résolution
+    public static void buildCallGraphBatch(List<File> javaFiles, Map<String, List<String>> callGraph,
+            Map<String, String> methodToClassMap, CouplingLayers relations, int threads)
+            throws IOException, InterruptedException {
+        // Fusion dans l'ordre des fichiers : même résultat que l'analyse séquentielle
+        for (FileCallGraph fileCallGraph : extractCallGraphsBatch(javaFiles, threads)) {
+            fileCallGraph.mergeInto(callGraph, methodToClassMap, relations);
+        }
+    }
+
+    // Construire le graphe d'appels en ne ré-analysant que les fichiers modifiés depuis la dernière exécution ;
+    // les contributions des autres fichiers sont relues depuis le cache
+    public static void buildCallGraphIncremental(List<File> javaFiles, Map<String, List<String>> callGraph,
+            Map<String, String> methodToClassMap, CouplingLayers relations, File cacheFile, int threads)
+            throws IOException, InterruptedException {
+        CallGraphCache cache = new CallGraphCache(cacheFile);
+        cache.load();
+        buildCallGraphIncremental(javaFiles, callGraph, methodToClassMap, relations, cache, threads);
+        cache.save();
+    }
+
+    // Même construction avec un cache déjà chargé et gardé en mémoire (démon), qui n'est pas enregistré ici.
+    // Les noms des méthodes appelées et les cibles des relations viennent de liaisons vers d'autres fichiers :
+    // un fichier inchangé est aussi ré-analysé quand un type dont il dépend est déclaré par un fichier modifié,
+    // ajouté ou supprimé (méthode déplacée dans une superclasse, redéfinition ajoutée...).
+    public static void buildCallGraphIncremental(List<File> javaFiles, Map<String, List<String>> callGraph,
+            Map<String, String> methodToClassMap, CouplingLayers relations, CallGraphCache cache, int threads)
+            throws IOException, InterruptedException {
+        Set<String> changedClasses = cache.retainAll(javaFiles); // Les fichiers supprimés disparaissent du graphe
+
+        FileCallGraph[] fileCallGraphs = new FileCallGraph[javaFiles.size()];
+        List<File> modifiedFiles = new ArrayList<>();
+        List<Integer> modifiedIndexes = new ArrayList<>();
+        for (int i = 0; i < javaFiles.size(); i++) {
+            fileCallGraphs[i] = cache.lookup(javaFiles.get(i));
+            if (fileCallGraphs[i] == null) {
+                modifiedFiles.add(javaFiles.get(i));
+                modifiedIndexes.add(i);
+            }
+        }
+        System.out.println("Cache : " + (javaFiles.size() - modifiedFiles.size()) + " fichiers inchangés, "
+                + modifiedFiles.size() + " fichiers à analyser");
+
+        FileCallGraph[] modifiedCallGraphs = extractCallGraphsBatch(modifiedFiles, threads);
+        for (int i = 0; i < modifiedCallGraphs.length; i++) {
+            FileCallGraph previous = cache.put(modifiedFiles.get(i), modifiedCallGraphs[i]);
+            changedClasses.addAll(modifiedCallGraphs[i].getDeclaredClasses());
+            if (previous != null) {
+                changedClasses.addAll(previous.getDeclaredClasses());
+            }
+        }
+
+        // Fichiers en cache qui dépendent d'un type changé ; les types qu'ils déclarent n'ayant pas changé,
+        // leur ré-analyse ne rend pas d'autres fichiers obsolètes
+        List<File> dependentFiles = new ArrayList<>();
+        List<Integer> dependentIndexes = new ArrayList<>();
+        if (!changedClasses.isEmpty()) {
+            for (int i = 0; i < javaFiles.size(); i++) {
+                if (fileCallGraphs[i] != null
+                        && !Collections.disjoint(fileCallGraphs[i].getDependencies(), changedClasses)) {
+                    dependentFiles.add(javaFiles.get(i));
+                    dependentIndexes.add(i);
+                }
+            }
+        }
+        if (!dependentFiles.isEmpty()) {
+            System.out.println("Cache : " + dependentFiles.size() + " fichiers dépendants à ré-analyser");
+        }
+        FileCallGraph[] dependentCallGraphs = extractCallGraphsBatch(dependentFiles, threads);
+        for (int i = 0; i < dependentCallGraphs.length; i++) {
+            fileCallGraphs[dependentIndexes.get(i)] = dependentCallGraphs[i];
+            cache.put(dependentFiles.get(i), dependentCallGraphs[i]);
+        }
+        for (int i = 0; i < modifiedCallGraphs.length; i++) {
+            fileCallGraphs[modifiedIndexes.get(i)] = modifiedCallGraphs[i];
+        }
+
+        for (FileCallGraph fileCallGraph : fileCallGraphs) {
+            fileCallGraph.mergeInto(callGraph, methodToClassMap, relations);
+        }
+    }
+
+    // Analyser les fichiers par lots, un lot par worker, et retourner leurs contributions dans l'ordre des fichiers
+    public static FileCallGraph[] extractCallGraphsBatch(List<File> javaFiles, int threads) throws InterruptedException {
+        FileCallGraph[] fileCallGraphs = new FileCallGraph[javaFiles.size()];
+        if (javaFiles.isEmpty()) {
+            return fileCallGraphs;
+        }
+        int workers = Math.max(1, Math.min(threads, javaFiles.size()));
+        int batchSize = (javaFiles.size() + workers - 1) / workers;
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers, PipelineMetrics.threadFactory());
+        try {
+            List<Future<FileCallGraph[]>> futures = new ArrayList<>(workers);
+            for (int start = 0; start < javaFiles.size(); start += batchSize) {
+                List<File> batch = javaFiles.subList(start, Math.min(start + batchSize, javaFiles.size()));
+                futures.add(executor.submit(() -> extractBatchCallGraphs(batch)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                FileCallGraph[] batchCallGraphs = futures.get(i).get();
+                System.arraycopy(batchCallGraphs, 0, fileCallGraphs, i * batchSize, batchCallGraphs.length);
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return fileCallGraphs;
+    }
+
+    // Analyser un lot de fichiers avec ASTParser.createASTs et retourner leurs contributions dans l'ordre du lot
+    public static FileCallGraph[] extractBatchCallGraphs(List<File> batch) {
+        String[] sourceFilePaths = new String[batch.size()];
+        String[] encodings = new String[batch.size()];
+        final Map<String, Integer> fileIndex = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            sourceFilePaths[i] = batch.get(i).getAbsolutePath();
+            encodings[i] = "UTF-8";
+            fileIndex.put(sourceFilePaths[i], i);
+        }
+
+        final FileCallGraph[] fileCallGraphs = new FileCallGraph[batch.size()];
+        FileASTRequestor requestor = new FileASTRequestor() {
+            // createASTs analyse chaque unité juste avant de la transmettre : son temps d'analyse est
+            // l'intervalle depuis la fin de la précédente
+            private long previous = System.nanoTime();
+
+            @Override
+            public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+                long parsed = System.nanoTime();
+                FileCallGraph fileCallGraph = new FileCallGraph();
+                ast.accept(new CallGraphVisitor(fileCallGraph));
+                int index = fileIndex.get(sourceFilePath);
+                fileCallGraphs[index] = fileCallGraph;
+                long visited = System.nanoTime();
+                recordFile(batch.get(index), parsed - previous, visited - parsed);
+                previous = visited;
+            }
+        };
+        newParser().createASTs(sourceFilePaths, encodings, new String[0], requestor, null);
+
+        // Un fichier rejeté par JDT ne contribue rien, comme une unité vide
+        for (int i = 0; i < fileCallGraphs.length; i++) {
+            if (fileCallGraphs[i] == null) {
+                fileCallGraphs[i] = new FileCallGraph();
+            }
+        }
+        return fileCallGraphs;
+    }
+
+    // Enregistrer les temps d'un fichier quand l'analyse est mesurée (appelé depuis les threads d'analyse)
+    private static void recordFile(File file, long parseNanos, long visitNanos) {
+        PipelineMetrics current = metrics;
+        if (current != null) {
+            current.recordFile(file, parseNanos, visitNanos);
+        }
+    }
+
     private static CompilationUnit parse(char[] classSource) {
+        ASTParser parser = newParser();
+        parser.setUnitName("");
+        parser.setSource(classSource);
+
+        return (CompilationUnit) parser.createAST(null);
+    }
+
+    // Créer un parseur configuré (options du compilateur et environnement de résolution)
+    private static ASTParser newParser() {
         ASTParser parser = ASTParser.newParser(AST.JLS4);
         parser.setResolveBindings(true);
         parser.setKind(ASTParser.K_COMPILATION_UNIT);
         parser.setBindingsRecovery(true);
+        parser.setCompilerOptions(COMPILER_OPTIONS);
+
+        String[] encodings = new String[sourcepathEntries.length];
+        Arrays.fill(encodings, "UTF-8");
+        parser.setEnvironment(classpathEntries, sourcepathEntries, encodings, true);
+        return parser;
+    }
 
-        // Set compiler options for Java 8
+    // Set compiler options for Java 7, computed once for every parser
+    private static Map<String, String> compilerOptions() {
+        @SuppressWarnings("unchecked") // JDT 3.10 retourne une Hashtable brute, de chaînes vers chaînes
         Map<String, String> options = JavaCore.getOptions();
         options.put(JavaCore.COMPILER_COMPLIANCE, JavaCore.VERSION_1_7);
         options.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_1_7);
         options.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_1_7);
-        parser.setCompilerOptions(options);
+        return options;
+    }
 
-        parser.setUnitName("");
-        String[] sources = { projectSourcePath };
-        String[] classpath = { jrePath };
-        parser.setEnvironment(classpath, sources, new String[] { "UTF-8" }, true);
-        parser.setSource(classSource);
+    // Méthode identifiée par sa liaison : classe déclarante et signature effacée, ex. FileUtils.copyFile(File,File)
+    private static final class ResolvedMethod {
+        final String name;
+        final String className;
 
-        return (CompilationUnit) parser.createAST(null);
+        ResolvedMethod(String name, String className) {
+            this.name = name;
+            this.className = className;
+        }
     }
 
     private static class CallGraphVisitor extends ASTVisitor {
         private Map<String, List<String>> callGraph;
-        private Map<String, String> methodToClassMap;
-        private String currentClassName;
+        private Map<String, String> declaredMethods; // Méthodes déclarées (put)
+        private Map<String, String> invokedMethods; // Méthodes appelées (putIfAbsent)
+        private CouplingLayers relations; // Appels à super, accès aux champs, références de types, héritage
+        // Types et méthodes englobants : empilés dans visit, dépilés dans endVisit. Les classes anonymes
+        // n'empilent rien, leurs méthodes appartenant à la classe nommée qui les contient.
+        private final ArrayDeque<String> enclosingClasses = new ArrayDeque<>();
+        private final ArrayDeque<ResolvedMethod> enclosingMethods = new ArrayDeque<>();
+        private String packageName = ""; // Paquetage du fichier visité, "" pour le paquetage par défaut
+        // Les liaisons d'un même AST sont partagées par tous les sites d'appel : résolution une seule fois par fichier
+        private final Map<IMethodBinding, ResolvedMethod> fileMethods = new IdentityHashMap<>();
+        private final Map<ITypeBinding, String> fileClasses = new IdentityHashMap<>();
+        // Types déclarés par le fichier et types dont dépendent ses liaisons, pour le cache
+        private Set<String> declaredClasses = new HashSet<>();
+        private Set<String> dependencies = new HashSet<>();
+        private final Set<ITypeBinding> fileDependencies = Collections.newSetFromMap(new IdentityHashMap<>());
 
-        public CallGraphVisitor(Map<String, List<String>> callGraph, Map<String, String> methodToClassMap) {
+        public CallGraphVisitor(Map<String, List<String>> callGraph, Map<String, String> declaredMethods,
+                Map<String, String> invokedMethods, CouplingLayers relations) {
             this.callGraph = callGraph;
-            this.methodToClassMap = methodToClassMap;
+            this.declaredMethods = declaredMethods;
+            this.invokedMethods = invokedMethods;
+            this.relations = relations;
+        }
+
+        public CallGraphVisitor(FileCallGraph fileCallGraph) {
+            this(fileCallGraph.getCallGraph(), fileCallGraph.getDeclaredMethods(), fileCallGraph.getInvokedMethods(),
+                    fileCallGraph.getRelations());
+            this.declaredClasses = fileCallGraph.getDeclaredClasses();
+            this.dependencies = fileCallGraph.getDependencies();
+        }
+
+        @Override
+        public boolean visit(CompilationUnit node) {
+            PackageDeclaration declaration = node.getPackage();
+            packageName = declaration == null ? "" : declaration.getName().getFullyQualifiedName();
+            return super.visit(node);
         }
 
         @Override
         public boolean visit(TypeDeclaration node) {
+            declaredClasses.add(node.getName().getIdentifier());
             if (node.isInterface()) {
                 return false;
             }
-            currentClassName = node.getName().getFullyQualifiedName();
+            enclosingClasses.push(node.getName().getIdentifier());
+            relations.setPackage(node.getName().getIdentifier(), packageName);
+            ITypeBinding binding = node.resolveBinding();
+            if (binding != null) {
+                // Les appels sans receveur sont résolus dans les supertypes
+                addDependency(binding);
+                addRelation(CouplingLayers.Kind.INHERITANCE, binding.getSuperclass());
+                for (ITypeBinding superInterface : binding.getInterfaces()) {
+                    addRelation(CouplingLayers.Kind.INHERITANCE, superInterface);
+                }
+            }
             return super.visit(node);
         }
 
+        @Override
+        public void endVisit(TypeDeclaration node) {
+            if (!node.isInterface()) {
+                enclosingClasses.pop();
+            }
+        }
+
+        @Override
+        public boolean visit(EnumDeclaration node) {
+            declaredClasses.add(node.getName().getIdentifier());
+            enclosingClasses.push(node.getName().getIdentifier());
+            relations.setPackage(node.getName().getIdentifier(), packageName);
+            ITypeBinding binding = node.resolveBinding();
+            if (binding != null) {
+                addDependency(binding);
+                for (ITypeBinding superInterface : binding.getInterfaces()) {
+                    addRelation(CouplingLayers.Kind.INHERITANCE, superInterface);
+                }
+            }
+            return super.visit(node);
+        }
+
+        @Override
+        public void endVisit(EnumDeclaration node) {
+            enclosingClasses.pop();
+        }
+
         @Override
         public boolean visit(MethodDeclaration node) {
             if (Modifier.isAbstract(node.getModifiers())) {
                 return false; // Ignore abstract methods
             }
-            String methodName = currentClassName + "." + node.getName().getFullyQualifiedName();
-            methodToClassMap.put(methodName, currentClassName);
-            callGraph.putIfAbsent(methodName, new ArrayList<>());
+            ResolvedMethod method = declaredMethod(node);
+            declaredMethods.put(method.name, method.className);
+            callGraph.putIfAbsent(method.name, new ArrayList<>());
+            enclosingMethods.push(method);
             return super.visit(node);
         }
 
         @Override
-        public boolean visit(MethodInvocation node) {
-            String invokedMethodName;
-            if (node.getExpression() != null) {
-                invokedMethodName = node.getExpression() + "." + node.getName().getFullyQualifiedName();
-            } else {
-                invokedMethodName = currentClassName + "." + node.getName().getFullyQualifiedName();
+        public void endVisit(MethodDeclaration node) {
+            if (!Modifier.isAbstract(node.getModifiers())) {
+                enclosingMethods.pop();
             }
+        }
 
-            MethodDeclaration parentMethod = getParentMethodDeclaration(node);
-            if (parentMethod != null) {
-                String callingMethodName = currentClassName + "." + parentMethod.getName().getFullyQualifiedName();
+        @Override
+        public boolean visit(MethodInvocation node) {
+            // Appels hors de toute méthode (initialiseurs de champs) : ignorés
+            ResolvedMethod callingMethod = enclosingMethods.peek();
+            if (callingMethod != null) {
+                String callingMethodName = callingMethod.name;
+                if (node.getExpression() != null) {
+                    // La méthode désignée dépend de la hiérarchie du receveur (redéfinitions, méthodes héritées)
+                    addDependency(node.getExpression().resolveTypeBinding());
+                }
 
                 // Associez la méthode appelée à sa classe, si ce n'est pas déjà fait
-                methodToClassMap.putIfAbsent(invokedMethodName, currentClassName);
-
-                // Récupérez la classe appelante et la classe appelée
-                String callingClass = methodToClassMap.getOrDefault(callingMethodName, "Unknown");
-                String calledClass = methodToClassMap.getOrDefault(invokedMethodName, "Unknown");
+                ResolvedMethod invokedMethod = resolve(node.resolveMethodBinding());
+                String invokedMethodName;
+                if (invokedMethod != null) {
+                    invokedMethodName = invokedMethod.name;
+                    invokedMethods.putIfAbsent(invokedMethodName, invokedMethod.className);
+                } else {
+                    // Appel non résolu ou hors des sources analysées : rattaché à la classe courante
+                    String currentClassName = enclosingClasses.peek();
+                    invokedMethodName = currentClassName + "." + node.getName().getIdentifier();
+                    invokedMethods.putIfAbsent(invokedMethodName, currentClassName);
+                }
 
                 // Enregistrez l'appel dans le graphe d'appels
-                callGraph.computeIfAbsent(callingMethodName, k -> new ArrayList<>()).add(invokedMethodName);
+                List<String> calledMethods = callGraph.get(callingMethodName);
+                if (calledMethods == null) {
+                    calledMethods = new ArrayList<>();
+                    callGraph.put(callingMethodName, calledMethods);
+                }
+                calledMethods.add(invokedMethodName);
             }
             return super.visit(node);
         }
 
-        private MethodDeclaration getParentMethodDeclaration(ASTNode node) {
-            ASTNode current = node.getParent();
-            while (current != null && !(current instanceof MethodDeclaration)) {
-                current = current.getParent();
+        @Override
+        public boolean visit(SuperMethodInvocation node) {
+            IMethodBinding binding = node.resolveMethodBinding();
+            if (binding != null) {
+                addRelation(CouplingLayers.Kind.SUPER_CALL, binding.getMethodDeclaration().getDeclaringClass());
             }
-            return (MethodDeclaration) current;
+            return super.visit(node);
         }
-    }
 
-    public static void convertDotToImage(String dotFilePath, String imageFilePath) throws IOException, InterruptedException {
-        ProcessBuilder processBuilder = new ProcessBuilder("dot", "-Tpng", dotFilePath, "-o", imageFilePath);
-        Process process = processBuilder.start();
-        process.waitFor();
+        @Override
+        public boolean visit(SimpleName node) {
+            // Accès aux champs ; les déclarations et les noms de méthodes appelées ne sont pas résolus ici
+            if (!node.isDeclaration() && node.getLocationInParent() != MethodInvocation.NAME_PROPERTY
+                    && node.getLocationInParent() != SuperMethodInvocation.NAME_PROPERTY) {
+                IBinding binding = node.resolveBinding();
+                if (binding instanceof IVariableBinding && ((IVariableBinding) binding).isField()) {
+                    addRelation(CouplingLayers.Kind.FIELD_ACCESS, ((IVariableBinding) binding).getDeclaringClass());
+                    // Le champ désigné dépend de la hiérarchie du type qualifiant (champ masqué dans une sous-classe)
+                    if (node.getLocationInParent() == QualifiedName.NAME_PROPERTY) {
+                        addDependency(((QualifiedName) node.getParent()).getQualifier().resolveTypeBinding());
+                    } else if (node.getLocationInParent() == FieldAccess.NAME_PROPERTY) {
+                        addDependency(((FieldAccess) node.getParent()).getExpression().resolveTypeBinding());
+                    }
+                }
+            }
+            return super.visit(node);
+        }
+
+        @Override
+        public boolean visit(SimpleType node) {
+            // Les types des clauses extends et implements sont déjà comptés comme héritage
+            ASTNode type = node.getLocationInParent() == ParameterizedType.TYPE_PROPERTY ? node.getParent() : node;
+            StructuralPropertyDescriptor location = type.getLocationInParent();
+            if (location != TypeDeclaration.SUPERCLASS_TYPE_PROPERTY
+                    && location != TypeDeclaration.SUPER_INTERFACE_TYPES_PROPERTY
+                    && location != EnumDeclaration.SUPER_INTERFACE_TYPES_PROPERTY) {
+                addRelation(CouplingLayers.Kind.TYPE_REFERENCE, node.resolveBinding());
+            }
+            return false; // Le nom du type n'est pas un accès à un champ
+        }
+
+        // Relation de la classe courante vers une autre classe des sources analysées
+        private void addRelation(CouplingLayers.Kind kind, ITypeBinding target) {
+            addDependency(target); // Cible résolue dans un autre fichier : le cache doit la suivre
+            String currentClassName = enclosingClasses.peek();
+            String targetClassName = sourceClassName(target);
+            if (currentClassName != null && targetClassName != null && !targetClassName.equals(currentClassName)) {
+                relations.add(kind, currentClassName, targetClassName);
+            }
+        }
+
+        // Méthode déclarée, nommée comme ses appels ; sans liaison, classe courante et nom simple
+        private ResolvedMethod declaredMethod(MethodDeclaration node) {
+            ResolvedMethod method = resolve(node.resolveBinding());
+            if (method == null) {
+                String currentClassName = enclosingClasses.peek();
+                method = new ResolvedMethod(currentClassName + "." + node.getName().getIdentifier(), currentClassName);
+            }
+            return method;
+        }
+
+        // null si la liaison est absente, reconstituée ou déclarée hors des sources analysées (bibliothèques, JRE)
+        private ResolvedMethod resolve(IMethodBinding binding) {
+            if (binding == null) {
+                return null;
+            }
+            IMethodBinding declaration = binding.getMethodDeclaration();
+            if (fileMethods.containsKey(declaration)) {
+                return fileMethods.get(declaration);
+            }
+            addDependency(declaration.getDeclaringClass());
+            ResolvedMethod method = null;
+            String className = declaration.isRecovered() ? null : sourceClassName(declaration.getDeclaringClass());
+            if (className != null) {
+                String bindingKey = declaration.getKey();
+                method = resolvedMethods.get(bindingKey);
+                if (method == null) {
+                    method = newResolvedMethod(declaration, className);
+                    ResolvedMethod previous = resolvedMethods.putIfAbsent(bindingKey, method);
+                    if (previous != null) {
+                        method = previous;
+                    }
+                }
+            }
+            fileMethods.put(declaration, method);
+            return method;
+        }
+
+        // Nom de la classe désignée si elle fait partie des sources analysées, null pour les types des
+        // bibliothèques, non résolus, primitifs ou les variables de type. Une classe anonyme est remplacée
+        // par la classe nommée qui la contient.
+        private String sourceClassName(ITypeBinding binding) {
+            if (binding == null) {
+                return null;
+            }
+            if (fileClasses.containsKey(binding)) {
+                return fileClasses.get(binding);
+            }
+            String className = null;
+            ITypeBinding type = (binding.isArray() ? binding.getElementType() : binding).getErasure();
+            if (!type.isRecovered() && type.isFromSource() && !type.isTypeVariable() && !type.isPrimitive()) {
+                while (type.isAnonymous() && type.getDeclaringClass() != null) {
+                    type = type.getDeclaringClass().getErasure();
+                }
+                className = type.getName();
+            }
+            fileClasses.put(binding, className);
+            return className;
+        }
+
+        // Type des sources dont dépend une liaison du fichier, avec ses supertypes : la modification de l'un
+        // d'eux peut changer la méthode, le champ ou le type désigné. Un type introuvable est gardé par son
+        // nom, un fichier ajouté pouvant le déclarer ; les types des bibliothèques ne changent pas entre deux
+        // analyses.
+        private void addDependency(ITypeBinding binding) {
+            if (binding == null) {
+                return;
+            }
+            ITypeBinding type = (binding.isArray() ? binding.getElementType() : binding).getErasure();
+            if (type.isPrimitive() || type.isNullType() || type.isTypeVariable() || !fileDependencies.add(type)) {
+                return;
+            }
+            if (type.isRecovered() || type.isFromSource()) {
+                if (!type.getName().isEmpty()) {
+                    dependencies.add(type.getName());
+                }
+            }
+            if (type.isFromSource() && !type.isRecovered()) {
+                addDependency(type.getSuperclass());
+                for (ITypeBinding superInterface : type.getInterfaces()) {
+                    addDependency(superInterface);
+                }
+            }
+        }
+
+        private static ResolvedMethod newResolvedMethod(IMethodBinding declaration, String className) {
+            StringBuilder name = new StringBuilder(className).append('.').append(declaration.getName());
+            ITypeBinding[] parameterTypes = declaration.getParameterTypes();
+            for (ITypeBinding parameterType : parameterTypes) {
+                if (parameterType.isRecovered()) {
+                    // Type introuvable dans l'environnement : la surcharge choisie n'est pas fiable, nom sans signature
+                    return new ResolvedMethod(name.toString(), className);
+                }
+            }
+            name.append('(');
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i > 0) {
+                    name.append(',');
+                }
+                name.append(parameterTypes[i].getErasure().getName());
+            }
+            return new ResolvedMethod(name.append(')').toString(), className);
+        }
     }
 }
@@ -2,26 +2,40 @@
 import java.awt.BorderLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
+import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 
 import org.apache.commons.io.FileUtils;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
-import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
@@ -35,6 +49,133 @@ public class ParserGUI {
     private JFrame frame;
     private JTextArea outputArea;
     private JButton loadButton;
+    private JButton cancelButton;
+    private JProgressBar progressBar;
+    private AnalysisWorker worker;
+
+    // Avancement publié par le thread d'analyse après chaque fichier
+    private static class FileProgress {
+        final int processed;
+        final int total;
+        final String fileName;
+        final int methods;
+        final int calls;
+        final double filesPerSecond;
+
+        FileProgress(int processed, int total, String fileName, int methods, int calls, double filesPerSecond) {
+            this.processed = processed;
+            this.total = total;
+            this.fileName = fileName;
+            this.methods = methods;
+            this.calls = calls;
+            this.filesPerSecond = filesPerSecond;
+        }
+    }
+
+    // Analyse hors de l'EDT : parsing fichier par fichier (annulable), fichier DOT, disposition et dessin.
+    // L'EDT ne reçoit que l'avancement (process) puis l'image finale (done).
+    private class AnalysisWorker extends SwingWorker<BufferedImage, FileProgress> {
+        // Moniteur passé à JDT : l'annulation interrompt aussi le parsing du fichier en cours
+        private final IProgressMonitor monitor = new NullProgressMonitor() {
+            @Override
+            public boolean isCanceled() {
+                return isCancelled();
+            }
+        };
+
+        @Override
+        protected BufferedImage doInBackground() throws Exception {
+            try {
+                return analyze();
+            } finally {
+                // Après une annulation, done() s'exécute dès cancel() : Load ne redevient actif qu'ici, une fois
+                // le parsing et le dessin réellement terminés, pour que deux analyses ne se chevauchent jamais
+                SwingUtilities.invokeLater(() -> loadButton.setEnabled(true));
+            }
+        }
+
+        private BufferedImage analyze() throws Exception {
+            ArrayList<File> javaFiles = listJavaFilesForFolder(new File(projectSourcePath));
+            Map<String, List<String>> callGraph = new HashMap<>();
+            long start = System.nanoTime();
+
+            for (int i = 0; i < javaFiles.size(); i++) {
+                if (isCancelled()) {
+                    return null;
+                }
+                File fileEntry = javaFiles.get(i);
+                String content = FileUtils.readFileToString(fileEntry);
+                CompilationUnit parse;
+                try {
+                    parse = parse(content.toCharArray(), monitor);
+                } catch (OperationCanceledException e) {
+                    return null;
+                }
+
+                // Résultats du fichier : visiteur sur un graphe propre au fichier, puis fusion
+                Map<String, List<String>> fileCallGraph = new HashMap<>();
+                parse.accept(new CallGraphVisitor(fileCallGraph));
+                int calls = 0;
+                for (Map.Entry<String, List<String>> entry : fileCallGraph.entrySet()) {
+                    calls += entry.getValue().size();
+                    List<String> calledMethods = callGraph.get(entry.getKey());
+                    if (calledMethods == null) {
+                        callGraph.put(entry.getKey(), entry.getValue());
+                    } else {
+                        calledMethods.addAll(entry.getValue());
+                    }
+                }
+
+                double seconds = (System.nanoTime() - start) / 1e9;
+                publish(new FileProgress(i + 1, javaFiles.size(), fileEntry.getName(), fileCallGraph.size(), calls,
+                        (i + 1) / Math.max(seconds, 1e-9)));
+            }
+            if (isCancelled()) {
+                return null;
+            }
+
+            generateDotFile(callGraph, "call_graph.dot");
+            return renderGraph(callGraph);
+        }
+
+        @Override
+        protected void process(List<FileProgress> chunks) {
+            if (isCancelled()) {
+                return; // Fichiers terminés après l'annulation : déjà annoncée par done()
+            }
+            FileProgress last = chunks.get(chunks.size() - 1);
+            progressBar.setMaximum(last.total);
+            progressBar.setValue(last.processed);
+            progressBar.setString(String.format("%d / %d files - %.1f files/s", last.processed, last.total,
+                    last.filesPerSecond));
+            for (FileProgress progress : chunks) {
+                outputArea.append("Parsed " + progress.fileName + ": " + progress.methods + " methods, "
+                        + progress.calls + " calls\n");
+            }
+        }
+
+        @Override
+        protected void done() {
+            cancelButton.setEnabled(false);
+            if (isCancelled()) {
+                outputArea.append("Analysis cancelled\n");
+                return;
+            }
+            try {
+                BufferedImage image = get();
+                if (image == null) {
+                    outputArea.append("Analysis cancelled\n");
+                    return;
+                }
+                outputArea.append("DOT file generated: call_graph.dot\n");
+                showGraph(image);
+            } catch (ExecutionException ex) {
+                outputArea.append("Error: " + ex.getCause().getMessage() + "\n");
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> new ParserGUI().createAndShowGUI());
@@ -51,11 +192,27 @@ public class ParserGUI {
 
         loadButton = new JButton("Load Java Files and Generate Graph");
         loadButton.addActionListener(new LoadButtonListener());
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> {
+            if (worker != null) {
+                worker.cancel(false);
+            }
+        });
+
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        progressBar.setString("");
+
+        JPanel buttons = new JPanel(new BorderLayout());
+        buttons.add(loadButton, BorderLayout.CENTER);
+        buttons.add(cancelButton, BorderLayout.EAST);
 
         JPanel panel = new JPanel();
         panel.setLayout(new BorderLayout());
-        panel.add(loadButton, BorderLayout.NORTH);
+        panel.add(buttons, BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(progressBar, BorderLayout.SOUTH);
 
         frame.add(panel);
         frame.setVisible(true);
@@ -64,33 +221,16 @@ public class ParserGUI {
     private class LoadButtonListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            try {
-                Map<String, List<String>> callGraph = buildCallGraph();
-                String dotFilePath = "call_graph.dot";
-                generateDotFile(callGraph, dotFilePath);
-                displayGraph(dotFilePath);
-            } catch (IOException ex) {
-                outputArea.append("Error: " + ex.getMessage() + "\n");
-            }
+            // L'analyse tourne sur un thread de fond : l'interface reste réactive
+            loadButton.setEnabled(false);
+            cancelButton.setEnabled(true);
+            outputArea.setText("");
+            progressBar.setValue(0);
+            worker = new AnalysisWorker();
+            worker.execute();
         }
     }
 
-    private Map<String, List<String>> buildCallGraph() throws IOException {
-        final File folder = new File(projectSourcePath);
-        ArrayList<File> javaFiles = listJavaFilesForFolder(folder);
-
-        Map<String, List<String>> callGraph = new HashMap<>();
-
-        for (File fileEntry : javaFiles) {
-            String content = FileUtils.readFileToString(fileEntry);
-            CompilationUnit parse = parse(content.toCharArray());
-
-            CallGraphVisitor visitor = new CallGraphVisitor(callGraph);
-            parse.accept(visitor);
-        }
-        return callGraph;
-    }
-
     public ArrayList<File> listJavaFilesForFolder(final File folder) {
         ArrayList<File> javaFiles = new ArrayList<>();
         for (File fileEntry : folder.listFiles()) {
@@ -103,13 +243,14 @@ public class ParserGUI {
         return javaFiles;
     }
 
-    private CompilationUnit parse(char[] classSource) {
+    private CompilationUnit parse(char[] classSource, IProgressMonitor monitor) {
         ASTParser parser = ASTParser.newParser(AST.JLS4);
         parser.setResolveBindings(true);
         parser.setKind(ASTParser.K_COMPILATION_UNIT);
         parser.setBindingsRecovery(true);
 
-        Map options = JavaCore.getOptions();
+        @SuppressWarnings("unchecked") // JDT 3.10 retourne une Hashtable brute, de chaînes vers chaînes
+        Map<String, String> options = JavaCore.getOptions();
         parser.setCompilerOptions(options);
         parser.setUnitName("");
 
@@ -119,11 +260,13 @@ public class ParserGUI {
         parser.setEnvironment(classpath, sources, new String[]{"UTF-8"}, true);
         parser.setSource(classSource);
 
-        return (CompilationUnit) parser.createAST(null);
+        return (CompilationUnit) parser.createAST(monitor);
     }
 
     private class CallGraphVisitor extends ASTVisitor {
         private Map<String, List<String>> callGraph;
+        // Méthodes englobantes, empilées dans visit et dépilées dans endVisit
+        private final ArrayDeque<List<String>> enclosingMethods = new ArrayDeque<>();
 
         public CallGraphVisitor(Map<String, List<String>> callGraph) {
             this.callGraph = callGraph;
@@ -132,66 +275,78 @@ public class ParserGUI {
         @Override
         public boolean visit(MethodDeclaration node) {
             String methodName = node.getName().getFullyQualifiedName();
-            callGraph.putIfAbsent(methodName, new ArrayList<>());
+            List<String> calledMethods = callGraph.get(methodName);
+            if (calledMethods == null) {
+                calledMethods = new ArrayList<>();
+                callGraph.put(methodName, calledMethods);
+            }
+            enclosingMethods.push(calledMethods);
             return super.visit(node);
         }
 
+        @Override
+        public void endVisit(MethodDeclaration node) {
+            enclosingMethods.pop();
+        }
+
         @Override
         public boolean visit(MethodInvocation node) {
-            String invokedMethodName = node.getName().getFullyQualifiedName();
-            MethodDeclaration parentMethod = getParentMethodDeclaration(node);
-            if (parentMethod != null) {
-                String callingMethodName = parentMethod.getName().getFullyQualifiedName();
-                callGraph.get(callingMethodName).add(invokedMethodName);
+            List<String> calledMethods = enclosingMethods.peek();
+            if (calledMethods != null) {
+                calledMethods.add(node.getName().getIdentifier());
             }
             return super.visit(node);
         }
+    }
 
-        private MethodDeclaration getParentMethodDeclaration(ASTNode node) {
-            ASTNode current = node.getParent();
-            while (current != null && !(current instanceof MethodDeclaration)) {
-                current = current.getParent();
+    private void generateDotFile(Map<String, List<String>> callGraph, String filePath) throws IOException {
+        // Écrire les arcs au fil de l'eau plutôt que de construire tout le document en mémoire
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(filePath), StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write("digraph CallGraph {\n");
+            for (Map.Entry<String, List<String>> entry : callGraph.entrySet()) {
+                String caller = entry.getKey();
+                for (String callee : entry.getValue()) {
+                    writer.write("    \"");
+                    writer.write(caller);
+                    writer.write("\" -> \"");
+                    writer.write(callee);
+                    writer.write("\";\n");
+                }
             }
-            return (MethodDeclaration) current;
+            writer.write("}\n");
         }
     }
 
-    private void generateDotFile(Map<String, List<String>> callGraph, String filePath) throws IOException {
-        StringBuilder dotContent = new StringBuilder();
-        dotContent.append("digraph CallGraph {\n");
-
+    // Disposer et dessiner le graphe (thread de fond), sans appel à Graphviz
+    private BufferedImage renderGraph(Map<String, List<String>> callGraph) throws IOException {
+        // Graphe pondéré des appels : poids = nombre d'appels de caller vers callee
+        Map<String, Map<String, Integer>> weightedCallGraph = new LinkedHashMap<>();
         for (Map.Entry<String, List<String>> entry : callGraph.entrySet()) {
-            String caller = entry.getKey();
+            Map<String, Integer> callees = new LinkedHashMap<>();
             for (String callee : entry.getValue()) {
-                dotContent.append("    \"" + caller + "\" -> \"" + callee + "\";\n");
+                callees.put(callee, callees.getOrDefault(callee, 0) + 1);
             }
+            weightedCallGraph.put(entry.getKey(), callees);
         }
 
-        dotContent.append("}\n");
-
-        // Écrire le contenu dans un fichier
-        FileUtils.writeStringToFile(new File(filePath), dotContent.toString(), "UTF-8");
-        outputArea.append("DOT file generated: " + filePath + "\n");
+        WeightedCouplingGraph graph = new WeightedCouplingGraph(weightedCallGraph);
+        ForceDirectedLayout layout = new ForceDirectedLayout();
+        layout.compute(graph);
+        BufferedImage image = new GraphRenderer(graph, layout).render();
+        ImageIO.write(image, "png", new File("call_graph.png"));
+        return image;
     }
 
-    private void displayGraph(String dotFilePath) {
-        try {
-            // Commande pour générer le fichier image avec Graphviz
-            ProcessBuilder pb = new ProcessBuilder("dot", "-Tpng", dotFilePath, "-o", "call_graph.png");
-            Process process = pb.start();
-            process.waitFor();
-
-            // Charge et affiche l'image dans l'interface
-            JLabel imageLabel = new JLabel();
-            imageLabel.setIcon(new ImageIcon("call_graph.png"));
-            JFrame imageFrame = new JFrame("Call Graph");
-            imageFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-            imageFrame.add(imageLabel);
-            imageFrame.pack();
-            imageFrame.setVisible(true);
-        } catch (IOException | InterruptedException ex) {
-            outputArea.append("Error displaying graph: " + ex.getMessage() + "\n");
-        }
+    // Affiche l'image dans l'interface (EDT)
+    private void showGraph(BufferedImage image) {
+        JLabel imageLabel = new JLabel();
+        imageLabel.setIcon(new ImageIcon(image));
+        JFrame imageFrame = new JFrame("Call Graph");
+        imageFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        imageFrame.add(new JScrollPane(imageLabel));
+        imageFrame.pack();
+        imageFrame.setVisible(true);
     }
 }
 
@@ -0,0 +1,286 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+
+// Mesures d'une exécution de l'analyse, écrites en JSON : temps réel, temps CPU, octets alloués et tas occupé
+// de chaque étape, latence d'analyse de chaque fichier (histogramme, percentiles, fichiers les plus lents)
+// et tailles des graphes. Le temps CPU et les allocations sont ceux de tout le processus : les étapes
+// parallèles comptent le travail de tous leurs threads (JIT et GC compris). Avant le JDK 21, les threads des
+// pools de l'analyse (threadFactory, forkJoinThreadFactory) ajoutent leurs allocations en s'arrêtant.
+public class PipelineMetrics {
+    private static final int SLOWEST_FILES = 10;
+    private static final int HISTOGRAM_BUCKETS = 16; // [0, 1 ms), [1, 2 ms), [2, 4 ms) ... puis >= 2^14 ms
+    private static final Method TOTAL_ALLOCATED_BYTES = totalAllocatedBytesMethod();
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    // Threads des pools de l'analyse déjà arrêtés et octets qu'ils ont alloués (verrou : EXITED_THREADS)
+    private static final Set<Long> EXITED_THREADS = new HashSet<>();
+    private static long exitedAllocatedBytes;
+
+    private final com.sun.management.OperatingSystemMXBean os = operatingSystem();
+
+    private final List<String> stageNames = new ArrayList<>();
+    private final List<long[]> stageValues = new ArrayList<>(); // Réel, CPU, alloués (ns, ns, octets), tas occupé
+    private String currentStage;
+    private long[] stageStart;
+
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+
+    // Latences par fichier, enregistrées depuis les threads d'analyse
+    private long[] fileLatencies = new long[256];
+    private int fileCount;
+    private long parseNanos;
+    private long visitNanos;
+    private final long[] histogram = new long[HISTOGRAM_BUCKETS];
+    private final PriorityQueue<FileLatency> slowestFiles = new PriorityQueue<>(); // Le moins lent en tête
+
+    private static final class FileLatency implements Comparable<FileLatency> {
+        final String path;
+        final long parseNanos;
+        final long visitNanos;
+
+        FileLatency(String path, long parseNanos, long visitNanos) {
+            this.path = path;
+            this.parseNanos = parseNanos;
+            this.visitNanos = visitNanos;
+        }
+
+        long total() {
+            return parseNanos + visitNanos;
+        }
+
+        @Override
+        public int compareTo(FileLatency other) {
+            return Long.compare(total(), other.total());
+        }
+    }
+
+    // Terminer l'étape en cours et commencer la suivante
+    public void beginStage(String name) {
+        endStage();
+        currentStage = name;
+        stageStart = sample();
+    }
+
+    public void endStage() {
+        if (currentStage == null) {
+            return;
+        }
+        long[] end = sample();
+        long[] values = new long[4];
+        for (int i = 0; i < 3; i++) {
+            values[i] = stageStart[i] < 0 || end[i] < 0 ? -1 : end[i] - stageStart[i];
+        }
+        values[3] = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        stageNames.add(currentStage);
+        stageValues.add(values);
+        currentStage = null;
+    }
+
+    public void setCount(String name, long value) {
+        counts.put(name, value);
+    }
+
+    // Temps d'analyse JDT et de parcours de l'AST d'un fichier
+    public synchronized void recordFile(File file, long parseNanos, long visitNanos) {
+        long latency = parseNanos + visitNanos;
+        if (fileCount == fileLatencies.length) {
+            fileLatencies = Arrays.copyOf(fileLatencies, fileCount * 2);
+        }
+        fileLatencies[fileCount++] = latency;
+        this.parseNanos += parseNanos;
+        this.visitNanos += visitNanos;
+        long millis = latency / 1_000_000;
+        int bucket = millis == 0 ? 0 : Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+        histogram[bucket]++;
+        if (slowestFiles.size() < SLOWEST_FILES || latency > slowestFiles.peek().total()) {
+            slowestFiles.add(new FileLatency(file.getPath(), parseNanos, visitNanos));
+            if (slowestFiles.size() > SLOWEST_FILES) {
+                slowestFiles.poll();
+            }
+        }
+    }
+
+    public synchronized void write(File file) throws IOException {
+        endStage();
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.write("{\n  \"stages\": [");
+            for (int i = 0; i < stageNames.size(); i++) {
+                long[] values = stageValues.get(i);
+                writer.write(i == 0 ? "\n    {\"name\": " : ",\n    {\"name\": ");
+                GraphExporter.writeJsonString(writer, stageNames.get(i));
+                writer.write(", \"wallMillis\": " + millis(values[0]));
+                writer.write(", \"cpuMillis\": " + (values[1] < 0 ? "null" : millis(values[1])));
+                writer.write(", \"allocatedBytes\": " + (values[2] < 0 ? "null" : Long.toString(values[2])));
+                writer.write(", \"heapUsedBytes\": " + values[3] + "}");
+            }
+
+            writer.write("\n  ],\n  \"counts\": {");
+            boolean first = true;
+            for (Map.Entry<String, Long> count : counts.entrySet()) {
+                writer.write(first ? "\n    " : ",\n    ");
+                GraphExporter.writeJsonString(writer, count.getKey());
+                writer.write(": " + count.getValue());
+                first = false;
+            }
+
+            long[] latencies = Arrays.copyOf(fileLatencies, fileCount);
+            Arrays.sort(latencies);
+            writer.write("\n  },\n  \"files\": {\n    \"count\": " + fileCount);
+            writer.write(",\n    \"parseMillis\": " + millis(parseNanos));
+            writer.write(",\n    \"visitMillis\": " + millis(visitNanos));
+            writer.write(",\n    \"p50Millis\": " + millis(percentile(latencies, 50)));
+            writer.write(",\n    \"p90Millis\": " + millis(percentile(latencies, 90)));
+            writer.write(",\n    \"p99Millis\": " + millis(percentile(latencies, 99)));
+            writer.write(",\n    \"maxMillis\": " + millis(fileCount == 0 ? 0 : latencies[fileCount - 1]));
+            writer.write(",\n    \"histogram\": [");
+            for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; bucket++) {
+                writer.write(bucket == 0 ? "\n      " : ",\n      ");
+                writer.write("{\"fromMillis\": " + (bucket == 0 ? 0 : 1L << (bucket - 1)) + ", \"toMillis\": "
+                        + (bucket == HISTOGRAM_BUCKETS - 1 ? "null" : Long.toString(1L << bucket))
+                        + ", \"files\": " + histogram[bucket] + "}");
+            }
+            writer.write("\n    ],\n    \"slowest\": [");
+            List<FileLatency> slowest = new ArrayList<>(slowestFiles);
+            slowest.sort((a, b) -> b.compareTo(a));
+            for (int i = 0; i < slowest.size(); i++) {
+                FileLatency latency = slowest.get(i);
+                writer.write(i == 0 ? "\n      {\"path\": " : ",\n      {\"path\": ");
+                GraphExporter.writeJsonString(writer, latency.path);
+                writer.write(", \"parseMillis\": " + millis(latency.parseNanos) + ", \"visitMillis\": "
+                        + millis(latency.visitNanos) + "}");
+            }
+            writer.write("\n    ]\n  }\n}\n");
+        }
+    }
+
+    // Temps réel, temps CPU du processus et octets alloués par tous les threads ; -1 si non disponible
+    private long[] sample() {
+        long cpu = os == null ? -1 : os.getProcessCpuTime();
+        return new long[] { System.nanoTime(), cpu, allocatedBytes() };
+    }
+
+    // getTotalThreadAllocatedBytes (JDK 21) compte aussi les threads terminés ; sinon, somme des threads
+    // vivants et des threads des pools déjà arrêtés. Sous le verrou, un thread qui s'arrête est compté soit
+    // vivant, soit arrêté, jamais deux fois.
+    private static long allocatedBytes() {
+        if (!allocatedMemoryEnabled()) {
+            return -1;
+        }
+        if (TOTAL_ALLOCATED_BYTES != null) {
+            try {
+                return (Long) TOTAL_ALLOCATED_BYTES.invoke(THREADS);
+            } catch (ReflectiveOperationException e) {
+                // Somme des threads ci-dessous
+            }
+        }
+        synchronized (EXITED_THREADS) {
+            long[] ids = THREADS.getAllThreadIds();
+            long[] allocated = THREADS.getThreadAllocatedBytes(ids);
+            long total = exitedAllocatedBytes;
+            Set<Long> live = new HashSet<>();
+            for (int i = 0; i < ids.length; i++) {
+                if (allocated[i] >= 0) {
+                    live.add(ids[i]);
+                }
+                if (allocated[i] > 0 && !EXITED_THREADS.contains(ids[i])) {
+                    total += allocated[i];
+                }
+            }
+            // Un thread terminé n'apparaît plus parmi les threads vivants : son identifiant ne sert plus
+            EXITED_THREADS.retainAll(live);
+            return total;
+        }
+    }
+
+    // Fabrique des threads des pools d'exécution de l'analyse : un thread arrêté (shutdownNow, fin du pool)
+    // disparaît de la somme des threads vivants, il ajoute donc ses allocations avant de s'arrêter
+    public static ThreadFactory threadFactory() {
+        ThreadFactory defaults = Executors.defaultThreadFactory();
+        return task -> defaults.newThread(() -> {
+            try {
+                task.run();
+            } finally {
+                threadExiting();
+            }
+        });
+    }
+
+    // Même chose pour les pools fork-join
+    public static ForkJoinPool.ForkJoinWorkerThreadFactory forkJoinThreadFactory() {
+        return pool -> new ForkJoinWorkerThread(pool) {
+            @Override
+            protected void onTermination(Throwable exception) {
+                threadExiting();
+                super.onTermination(exception);
+            }
+        };
+    }
+
+    private static void threadExiting() {
+        if (!allocatedMemoryEnabled()) {
+            return;
+        }
+        long allocated = THREADS.getCurrentThreadAllocatedBytes();
+        synchronized (EXITED_THREADS) {
+            exitedAllocatedBytes += allocated;
+            EXITED_THREADS.add(Thread.currentThread().getId());
+        }
+    }
+
+    private static boolean allocatedMemoryEnabled() {
+        return THREADS != null && THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled();
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    // Extensions HotSpot de java.lang.management, absentes de certaines JVM
+    private static com.sun.management.OperatingSystemMXBean operatingSystem() {
+        java.lang.management.OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        return bean instanceof com.sun.management.OperatingSystemMXBean
+                ? (com.sun.management.OperatingSystemMXBean) bean : null;
+    }
+
+    private static Method totalAllocatedBytesMethod() {
+        try {
+            return com.sun.management.ThreadMXBean.class.getMethod("getTotalThreadAllocatedBytes");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+    }
+}
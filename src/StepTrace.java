@@ -0,0 +1,167 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Trace des étapes d'un clustering : chaque fusion (ou fusion ignorée) est enregistrée comme un événement
+// compact, puis mise en forme par un thread d'écriture, hors de la boucle de clustering. La console reçoit
+// le texte produit par le Formatter de l'algorithme, le fichier de trace une ligne par événement :
+//   phase <tab> étape <tab> merge|reject <tab> cluster conservé <tab> cluster absorbé <tab> couplage
+// Sans console ni fichier, la trace est désactivée et record ne fait rien.
+public class StepTrace {
+    private static final int QUEUE_CAPACITY = 4096; // Au-delà, la boucle attend le thread d'écriture
+    private static final Event END = new Event(false, 0, null, null, 0);
+
+    private final String phase;
+    private final Formatter console;
+    private final PrintStream out;
+    private final Writer file;
+    private final BlockingQueue<Event> events;
+    private final Thread writerThread;
+    private volatile Exception failure; // Première erreur d'écriture ou de mise en forme, relancée par close
+
+    public static final class Event {
+        public final boolean merged; // false : fusion ignorée
+        public final int step;
+        public final String kept;
+        public final String absorbed;
+        public final double coupling; // Couplage moyen du cluster fusionné, ou de la fusion ignorée
+
+        Event(boolean merged, int step, String kept, String absorbed, double coupling) {
+            this.merged = merged;
+            this.step = step;
+            this.kept = kept;
+            this.absorbed = absorbed;
+            this.coupling = coupling;
+        }
+    }
+
+    // Mise en forme console des événements, appelée dans leur ordre sur le thread d'écriture
+    public interface Formatter {
+        void format(Event event, PrintStream out);
+    }
+
+    // console : null pour ne rien afficher ; file : null pour ne pas écrire de fichier (il n'est pas fermé ici)
+    public StepTrace(String phase, Formatter console, Writer file) {
+        this.phase = phase;
+        this.console = console;
+        this.out = System.out;
+        this.file = file;
+        if (console == null && file == null) {
+            events = null;
+            writerThread = null;
+            return;
+        }
+        events = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        writerThread = PipelineMetrics.threadFactory().newThread(this::writeEvents);
+        writerThread.setName("step-trace-" + phase);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public boolean isEnabled() {
+        return events != null;
+    }
+
+    public void merge(int step, String kept, String absorbed, double coupling) {
+        record(new Event(true, step, kept, absorbed, coupling));
+    }
+
+    public void reject(int step, String kept, String absorbed, double coupling) {
+        record(new Event(false, step, kept, absorbed, coupling));
+    }
+
+    // Attendre que tous les événements soient écrits
+    public void close() {
+        if (events == null) {
+            return;
+        }
+        put(END);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure instanceof IOException) {
+            throw new UncheckedIOException((IOException) failure);
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    private void record(Event event) {
+        if (events != null) {
+            put(event);
+        }
+    }
+
+    private void put(Event event) {
+        try {
+            events.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Thread d'écriture : vider la file par paquets jusqu'à l'événement de fin. Après une erreur, les
+    // événements sont encore retirés (sans être écrits) pour que record et close ne restent pas bloqués.
+    private void writeEvents() {
+        List<Event> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(events.take());
+                events.drainTo(batch);
+                for (Event event : batch) {
+                    if (event == END) {
+                        flush();
+                        return;
+                    }
+                    if (failure == null) {
+                        write(event);
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(Event event) {
+        try {
+            if (console != null) {
+                console.format(event, out);
+            }
+            if (file != null) {
+                writeLine(event);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+    }
+
+    private void writeLine(Event event) {
+        try {
+            file.write(phase + "\t" + event.step + "\t" + (event.merged ? "merge" : "reject") + "\t" + event.kept
+                    + "\t" + event.absorbed + "\t" + event.coupling + "\n");
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void flush() {
+        out.flush();
+        if (file != null && failure == null) {
+            try {
+                file.flush();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+}
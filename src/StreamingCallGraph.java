@@ -0,0 +1,158 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Graphe d'appels agrégé au fil de l'analyse, à mémoire bornée : chaque fichier est fusionné puis oublié.
+// Les appels ne sont pas gardés un par un mais par paire (appelant, appelé) distincte avec leur nombre
+// d'occurrences ; la mémoire dépend du nombre de méthodes et de paires, pas du nombre d'appels ni des AST.
+// L'association méthode-classe n'est définitive qu'en fin d'analyse (une déclaration ultérieure l'écrase) :
+// les compteurs entre classes sont donc dérivés à la fin, par toCompactCallGraph.
+public class StreamingCallGraph {
+    private final SymbolTable methods = new SymbolTable();
+    private final SymbolTable classes = new SymbolTable();
+    private int[] methodClasses = new int[64]; // Classe de chaque méthode, -1 si inconnue
+    private boolean[] callers = new boolean[64];
+    private int[] callerOrder = new int[64]; // Appelants dans l'ordre de première apparition
+    private int callerCount;
+
+    // Paires distinctes dans l'ordre de première apparition
+    private final LongIntMap pairIndexes = new LongIntMap(1024); // (appelant, appelé) -> indice + 1
+    private int[] pairCallers = new int[1024];
+    private int[] pairCallees = new int[1024];
+    private int[] pairCounts = new int[1024];
+    private int pairCount;
+    private long callCount;
+    private final CouplingLayers relations = new CouplingLayers(); // Déjà au niveau des classes : peu volumineuses
+
+    public StreamingCallGraph() {
+        Arrays.fill(methodClasses, -1);
+    }
+
+    // Fusionner la contribution d'un fichier (mêmes règles que FileCallGraph.mergeInto)
+    public void add(FileCallGraph fileCallGraph) {
+        for (Map.Entry<String, List<String>> entry : fileCallGraph.getCallGraph().entrySet()) {
+            int caller = method(entry.getKey());
+            if (!callers[caller]) {
+                callers[caller] = true;
+                if (callerCount == callerOrder.length) {
+                    callerOrder = Arrays.copyOf(callerOrder, callerCount * 2);
+                }
+                callerOrder[callerCount++] = caller;
+            }
+            for (String calledMethod : entry.getValue()) {
+                addCall(caller, method(calledMethod));
+            }
+        }
+        // Une déclaration écrase toujours, un appel n'associe que les méthodes encore inconnues
+        for (Map.Entry<String, String> entry : fileCallGraph.getDeclaredMethods().entrySet()) {
+            methodClasses[method(entry.getKey())] = classes.intern(entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : fileCallGraph.getInvokedMethods().entrySet()) {
+            int method = method(entry.getKey());
+            if (methodClasses[method] < 0) {
+                methodClasses[method] = classes.intern(entry.getValue());
+            }
+        }
+        relations.addAll(fileCallGraph.getRelations());
+    }
+
+    public CouplingLayers getRelations() {
+        return relations;
+    }
+
+    public int methodCount() {
+        return methods.size();
+    }
+
+    public int pairCount() {
+        return pairCount;
+    }
+
+    public long callCount() {
+        return callCount;
+    }
+
+    // Graphe compact pondéré, identique à celui construit depuis les Maps de l'analyse classique
+    public CompactCallGraph toCompactCallGraph() {
+        // Les appelants sont parcourus dans l'ordre d'itération qu'aurait la HashMap du graphe d'appels
+        Map<String, Integer> callerMap = new HashMap<>();
+        for (int i = 0; i < callerCount; i++) {
+            callerMap.put(methods.nameOf(callerOrder[i]), callerOrder[i]);
+        }
+        int[] newIds = new int[methods.size()];
+        Arrays.fill(newIds, -1);
+        int next = 0;
+        for (int caller : callerMap.values()) {
+            newIds[caller] = next++;
+        }
+
+        // Regrouper les paires par appelant, en gardant l'ordre de première apparition (tri par comptage stable)
+        int[] offsets = new int[callerCount + 1];
+        for (int p = 0; p < pairCount; p++) {
+            offsets[newIds[pairCallers[p]] + 1]++;
+        }
+        for (int c = 0; c < callerCount; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] position = Arrays.copyOf(offsets, callerCount);
+        int[] grouped = new int[pairCount];
+        for (int p = 0; p < pairCount; p++) {
+            grouped[position[newIds[pairCallers[p]]]++] = p;
+        }
+
+        // Les méthodes seulement appelées sont numérotées dans l'ordre où elles apparaissent
+        int[] targets = new int[pairCount];
+        int[] weights = new int[pairCount];
+        for (int i = 0; i < pairCount; i++) {
+            int p = grouped[i];
+            int callee = pairCallees[p];
+            if (newIds[callee] < 0) {
+                newIds[callee] = next++;
+            }
+            targets[i] = newIds[callee];
+            weights[i] = pairCounts[p];
+        }
+
+        String[] methodNames = new String[next];
+        String[] methodClassNames = new String[next];
+        for (int m = 0; m < methods.size(); m++) {
+            if (newIds[m] >= 0) {
+                methodNames[newIds[m]] = methods.nameOf(m);
+                methodClassNames[newIds[m]] = methodClasses[m] < 0 ? null : classes.nameOf(methodClasses[m]);
+            }
+        }
+        return new CompactCallGraph(methodNames, methodClassNames, callerCount, offsets, targets, weights);
+    }
+
+    private int method(String name) {
+        int id = methods.intern(name);
+        if (id == methodClasses.length) {
+            int capacity = id * 2;
+            methodClasses = Arrays.copyOf(methodClasses, capacity);
+            Arrays.fill(methodClasses, id, capacity, -1);
+            callers = Arrays.copyOf(callers, capacity);
+        }
+        return id;
+    }
+
+    private void addCall(int caller, int callee) {
+        callCount++;
+        long key = LongIntMap.pair(caller, callee);
+        int index = pairIndexes.get(key) - 1;
+        if (index >= 0) {
+            pairCounts[index]++;
+            return;
+        }
+        if (pairCount == pairCallers.length) {
+            int capacity = pairCount * 2;
+            pairCallers = Arrays.copyOf(pairCallers, capacity);
+            pairCallees = Arrays.copyOf(pairCallees, capacity);
+            pairCounts = Arrays.copyOf(pairCounts, capacity);
+        }
+        pairCallers[pairCount] = caller;
+        pairCallees[pairCount] = callee;
+        pairCounts[pairCount] = 1;
+        pairIndexes.add(key, ++pairCount);
+    }
+}
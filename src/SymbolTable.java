@@ -0,0 +1,41 @@
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Table de symboles : associe chaque nom (classe ou méthode) à un identifiant entier dense
+public class SymbolTable implements Symbols {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] names = new String[16];
+    private int size;
+
+    // Retourner l'identifiant du nom, en l'ajoutant s'il est inconnu
+    public int intern(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        names[size] = name;
+        ids.put(name, size);
+        return size++;
+    }
+
+    @Override
+    public int idOf(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
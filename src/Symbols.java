@@ -0,0 +1,11 @@
+// Noms (classes ou méthodes) numérotés de 0 à size() - 1, en lecture seule : ce que les graphes exposent,
+// qu'ils aient été construits par une SymbolTable ou projetés depuis un instantané (MappedSymbolTable)
+public interface Symbols {
+
+    // Retourner l'identifiant du nom, ou -1 s'il est inconnu
+    int idOf(String name);
+
+    String nameOf(int id);
+
+    int size();
+}
@@ -0,0 +1,250 @@
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+// Graphe de couplage pondéré compact entre classes internées.
+// Les arcs orientés et les voisinages non orientés (poids des deux sens additionnés)
+// sont stockés au format CSR, triés par identifiant de voisin, dans des IntBuffer : dans le tas, ou projetés
+// depuis un instantané (GraphSnapshot).
+public class WeightedCouplingGraph {
+    private final Symbols classes;
+    private final int sourceCount; // Les classes clés du graphe d'origine ont les identifiants 0 .. sourceCount - 1
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer weights;
+    private final IntBuffer neighbourOffsets;
+    private final IntBuffer neighbours;
+    private final IntBuffer neighbourWeights;
+
+    public WeightedCouplingGraph(Map<String, Map<String, Integer>> couplingGraph) {
+        this(classesOf(couplingGraph), couplingGraph.size(), couplingGraph);
+    }
+
+    private WeightedCouplingGraph(SymbolTable classes, int sourceCount, Map<String, Map<String, Integer>> couplingGraph) {
+        this(classes, sourceCount, edgesOf(classes, couplingGraph));
+    }
+
+    // Graphe construit depuis des arcs déjà agrégés, sans passer par des Maps :
+    // edges associe LongIntMap.pair(a, b) au poids de a -> b, a et b étant des identifiants de classes ;
+    // les sourceCount premières classes sont les classes clés, dans leur ordre d'itération
+    public WeightedCouplingGraph(Symbols classes, int sourceCount, LongIntMap edges) {
+        this.classes = classes;
+        this.sourceCount = sourceCount;
+
+        int edgeCount = edges.size();
+        long[] packedEdges = new long[edgeCount];
+        int[] rowOf = new int[edgeCount];
+        int edge = 0;
+        for (int slot = 0; slot < edges.capacity(); slot++) {
+            long key = edges.keyAt(slot);
+            if (key >= 0) {
+                rowOf[edge] = (int) (key >>> 32);
+                packedEdges[edge++] = pack((int) key, edges.valueAt(slot));
+            }
+        }
+
+        int n = classes.size();
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[edgeCount];
+        int[] weights = new int[edgeCount];
+        long[] rows = groupByRow(n, rowOf, packedEdges, edgeCount, offsets);
+        for (int i = 0; i < edgeCount; i++) {
+            targets[i] = (int) (rows[i] >>> 32);
+            weights[i] = (int) rows[i];
+        }
+
+        // Voisinage non orienté : chaque arc a -> b contribue à a et à b
+        int symCount = 0;
+        for (int a = 0; a < n; a++) {
+            for (int i = offsets[a]; i < offsets[a + 1]; i++) {
+                if (targets[i] != a) {
+                    symCount += 2;
+                }
+            }
+        }
+        long[] symEdges = new long[symCount];
+        int[] symRowOf = new int[symCount];
+        int k = 0;
+        for (int a = 0; a < n; a++) {
+            for (int i = offsets[a]; i < offsets[a + 1]; i++) {
+                int b = targets[i];
+                if (a == b) {
+                    continue;
+                }
+                symRowOf[k] = a;
+                symEdges[k++] = pack(b, weights[i]);
+                symRowOf[k] = b;
+                symEdges[k++] = pack(a, weights[i]);
+            }
+        }
+        int[] symOffsets = new int[n + 1];
+        long[] symRows = groupByRow(n, symRowOf, symEdges, symCount, symOffsets);
+
+        // Additionner les doublons (a -> b et b -> a)
+        int[] neighbourOffsets = new int[n + 1];
+        int[] mergedNeighbours = new int[symCount];
+        int[] mergedWeights = new int[symCount];
+        int size = 0;
+        for (int a = 0; a < n; a++) {
+            neighbourOffsets[a] = size;
+            for (int i = symOffsets[a]; i < symOffsets[a + 1]; i++) {
+                int b = (int) (symRows[i] >>> 32);
+                int w = (int) symRows[i];
+                if (size > neighbourOffsets[a] && mergedNeighbours[size - 1] == b) {
+                    mergedWeights[size - 1] += w;
+                } else {
+                    mergedNeighbours[size] = b;
+                    mergedWeights[size++] = w;
+                }
+            }
+        }
+        neighbourOffsets[n] = size;
+
+        this.offsets = IntBuffer.wrap(offsets);
+        this.targets = IntBuffer.wrap(targets);
+        this.weights = IntBuffer.wrap(weights);
+        this.neighbourOffsets = IntBuffer.wrap(neighbourOffsets);
+        this.neighbours = IntBuffer.wrap(Arrays.copyOf(mergedNeighbours, size));
+        this.neighbourWeights = IntBuffer.wrap(Arrays.copyOf(mergedWeights, size));
+    }
+
+    // Graphe dont les tableaux CSR sont déjà construits (instantané) : offsets et neighbourOffsets ont
+    // classes.size() + 1 entrées, chaque ligne est triée par identifiant de voisin
+    public WeightedCouplingGraph(Symbols classes, int sourceCount, IntBuffer offsets, IntBuffer targets,
+            IntBuffer weights, IntBuffer neighbourOffsets, IntBuffer neighbours, IntBuffer neighbourWeights) {
+        this.classes = classes;
+        this.sourceCount = sourceCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.neighbourOffsets = neighbourOffsets;
+        this.neighbours = neighbours;
+        this.neighbourWeights = neighbourWeights;
+    }
+
+    public Symbols getClasses() {
+        return classes;
+    }
+
+    // Nombre de classes clés du graphe d'origine (identifiants 0 .. sourceCount() - 1)
+    public int sourceCount() {
+        return sourceCount;
+    }
+
+    public int edgeCount() {
+        return targets.limit();
+    }
+
+    // Poids de l'arc a -> b
+    public int weight(int a, int b) {
+        int i = binarySearch(targets, offsets.get(a), offsets.get(a + 1), b);
+        return i >= 0 ? weights.get(i) : 0;
+    }
+
+    // Poids a -> b plus poids b -> a
+    public int symmetricWeight(int a, int b) {
+        int i = binarySearch(neighbours, neighbourOffsets.get(a), neighbourOffsets.get(a + 1), b);
+        return i >= 0 ? neighbourWeights.get(i) : 0;
+    }
+
+    // Les arcs sortants de a sont target(i) pour edgeStart(a) <= i < edgeEnd(a)
+    public int edgeStart(int a) {
+        return offsets.get(a);
+    }
+
+    public int edgeEnd(int a) {
+        return offsets.get(a + 1);
+    }
+
+    public int target(int i) {
+        return targets.get(i);
+    }
+
+    public int edgeWeight(int i) {
+        return weights.get(i);
+    }
+
+    // Les voisins de a sont neighbour(i) pour neighbourStart(a) <= i < neighbourEnd(a)
+    public int neighbourStart(int a) {
+        return neighbourOffsets.get(a);
+    }
+
+    public int neighbourEnd(int a) {
+        return neighbourOffsets.get(a + 1);
+    }
+
+    public int neighbour(int i) {
+        return neighbours.get(i);
+    }
+
+    public int neighbourWeight(int i) {
+        return neighbourWeights.get(i);
+    }
+
+    // Les classes clés d'abord, puis les classes seulement appelées, dans l'ordre de leur première apparition
+    private static SymbolTable classesOf(Map<String, Map<String, Integer>> couplingGraph) {
+        SymbolTable classes = new SymbolTable();
+        for (String className : couplingGraph.keySet()) {
+            classes.intern(className);
+        }
+        for (Map<String, Integer> relations : couplingGraph.values()) {
+            for (String calledClass : relations.keySet()) {
+                classes.intern(calledClass);
+            }
+        }
+        return classes;
+    }
+
+    private static LongIntMap edgesOf(Symbols classes, Map<String, Map<String, Integer>> couplingGraph) {
+        LongIntMap edges = new LongIntMap(16);
+        for (Map.Entry<String, Map<String, Integer>> entry : couplingGraph.entrySet()) {
+            int source = classes.idOf(entry.getKey());
+            for (Map.Entry<String, Integer> relation : entry.getValue().entrySet()) {
+                edges.add(LongIntMap.pair(source, classes.idOf(relation.getKey())), relation.getValue());
+            }
+        }
+        return edges;
+    }
+
+    // Comme Arrays.binarySearch, sur une ligne triée d'un IntBuffer
+    private static int binarySearch(IntBuffer values, int from, int to, int key) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = values.get(mid);
+            if (value < key) {
+                low = mid + 1;
+            } else if (value > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static long pack(int target, int weight) {
+        return ((long) target << 32) | (weight & 0xffffffffL);
+    }
+
+    // Regrouper les arcs par ligne (tri par comptage) puis trier chaque ligne par voisin
+    private static long[] groupByRow(int n, int[] rowOf, long[] edges, int count, int[] rowOffsets) {
+        for (int i = 0; i < count; i++) {
+            rowOffsets[rowOf[i] + 1]++;
+        }
+        for (int a = 0; a < n; a++) {
+            rowOffsets[a + 1] += rowOffsets[a];
+        }
+        int[] next = Arrays.copyOf(rowOffsets, n);
+        long[] rows = new long[count];
+        for (int i = 0; i < count; i++) {
+            rows[next[rowOf[i]]++] = edges[i];
+        }
+        for (int a = 0; a < n; a++) {
+            Arrays.sort(rows, rowOffsets[a], rowOffsets[a + 1]);
+        }
+        return rows;
+    }
+}
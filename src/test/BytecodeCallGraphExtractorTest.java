@@ -0,0 +1,116 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Décodage des fichiers de classes : pool de constantes (entrées longues sur deux cases, UTF-8 modifié),
+// instructions de longueur variable (switch), résolution des méthodes héritées ; classes compilées par javac
+class BytecodeCallGraphExtractorTest {
+    private static final String SQUARE = "package p;\n"
+            + "public class Square extends Shape {\n"
+            + "    public int area(int kind, long size) {\n"
+            + "        long big = 123456789012L;\n"
+            + "        double ratio = 0.123456789;\n"
+            + "        switch (kind) {\n"
+            + "        case 0: return draw(size + big);\n"
+            + "        case 1: case 2: case 3: return draw((long) (size * ratio));\n"
+            + "        default: break;\n"
+            + "        }\n"
+            + "        switch (kind) {\n"
+            + "        case 100: return outline();\n"
+            + "        case 100000: return déjà();\n"
+            + "        default: return painter.paint(size);\n"
+            + "        }\n"
+            + "    }\n"
+            + "    int draw(long size) { String text = \"é€𝄞\"; return outline(); }\n"
+            + "    int déjà() { Runnable later = () -> outline(); later.run(); return 0; }\n"
+            + "}\n";
+
+    @TempDir
+    Path directory;
+
+    private File classes;
+
+    @BeforeEach
+    void compileFixtures() throws IOException {
+        Path sources = Files.createDirectories(directory.resolve("src/p"));
+        write(sources.resolve("Painter.java"), "package p;\npublic interface Painter {\n    int paint(long size);\n}\n");
+        write(sources.resolve("Shape.java"), "package p;\npublic class Shape {\n    protected Painter painter;\n"
+                + "    public int outline() { return 1; }\n}\n");
+        write(sources.resolve("Square.java"), SQUARE);
+        classes = Files.createDirectory(directory.resolve("classes")).toFile();
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int status = compiler.run(null, null, null, "-encoding", "UTF-8", "-d", classes.getPath(),
+                sources.resolve("Painter.java").toString(), sources.resolve("Shape.java").toString(),
+                sources.resolve("Square.java").toString());
+        assertEquals(0, status);
+    }
+
+    @Test
+    void callsAreNamedLikeTheSourceAnalysis() throws Exception {
+        Map<String, List<String>> callGraph = new HashMap<>();
+        Map<String, String> methodToClassMap = new HashMap<>();
+        BytecodeCallGraphExtractor.buildCallGraph(classes, callGraph, methodToClassMap, new CouplingLayers(), 1);
+
+        // Appels après des constantes long et double, dans et après un tableswitch puis un lookupswitch
+        assertEquals(Arrays.asList("Square.draw(long)", "Square.draw(long)", "Shape.outline()", "Square.déjà()",
+                "Painter.paint(long)"), callGraph.get("Square.area(int,long)"));
+        // Méthode héritée rattachée à la classe qui la déclare
+        assertEquals("Shape", methodToClassMap.get("Shape.outline()"));
+        assertTrue(callGraph.get("Square.draw(long)").contains("Shape.outline()"));
+        assertEquals(Arrays.asList("Square.run"), callGraph.get("Square.déjà()"));
+        assertEquals(Arrays.asList(), callGraph.get("Square.Square()"));
+    }
+
+    @Test
+    void relationsBetweenClasses() throws Exception {
+        CouplingLayers relations = new CouplingLayers();
+        BytecodeCallGraphExtractor.buildCallGraph(classes, new HashMap<>(), new HashMap<>(), relations, 1);
+
+        int[] squareToShape = relations.getCounts().get("Square").get("Shape");
+        assertEquals(1, squareToShape[CouplingLayers.Kind.INHERITANCE.ordinal()]);
+        assertEquals(1, squareToShape[CouplingLayers.Kind.FIELD_ACCESS.ordinal()]);
+        assertEquals("p", relations.getPackages().get("Square"));
+    }
+
+    @Test
+    void jarGivesTheSameGraphAsClassFiles() throws Exception {
+        File jar = directory.resolve("fixtures.jar").toFile();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (File classFile : new File(classes, "p").listFiles()) {
+                out.putNextEntry(new ZipEntry("p/" + classFile.getName()));
+                out.write(Files.readAllBytes(classFile.toPath()));
+                out.closeEntry();
+            }
+        }
+
+        Map<String, List<String>> fromClasses = new HashMap<>();
+        BytecodeCallGraphExtractor.buildCallGraph(classes, fromClasses, new HashMap<>(), new CouplingLayers(), 2);
+        Map<String, List<String>> fromJar = new HashMap<>();
+        BytecodeCallGraphExtractor.buildCallGraph(jar, fromJar, new HashMap<>(), new CouplingLayers(), 2);
+        assertEquals(fromClasses, fromJar);
+    }
+
+    private static void write(Path file, String source) throws IOException {
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+    }
+}
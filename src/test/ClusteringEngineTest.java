@@ -0,0 +1,104 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+// Le moteur (tas des paires, recherche parallèle) doit choisir les mêmes fusions, dans le même ordre, que le
+// parcours exhaustif de toutes les paires de clusters qu'il remplace
+class ClusteringEngineTest {
+
+    @Test
+    void sameMergesAsExhaustiveScan() {
+        for (long seed = 1; seed <= 20; seed++) {
+            Map<String, Map<String, Integer>> graph = randomGraph(new Random(seed), 40);
+            assertEquals(exhaustiveMerges(graph), merges(graph, 1), "graine " + seed);
+        }
+    }
+
+    @Test
+    void parallelSearchGivesTheSameMerges() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Map<String, Map<String, Integer>> graph = randomGraph(new Random(seed), 60);
+            assertEquals(merges(graph, 1), merges(graph, 4), "graine " + seed);
+        }
+    }
+
+    // Petits poids, beaucoup d'égalités ; des classes seulement appelées et des classes sans couplage
+    private static Map<String, Map<String, Integer>> randomGraph(Random random, int classCount) {
+        Map<String, Map<String, Integer>> graph = new LinkedHashMap<>();
+        for (int i = 0; i < classCount; i++) {
+            Map<String, Integer> relations = new LinkedHashMap<>();
+            int edges = i % 7 == 0 ? 0 : random.nextInt(4);
+            for (int k = 0; k < edges; k++) {
+                int target = random.nextInt(classCount + 5);
+                if (target != i) {
+                    String called = target < classCount ? "C" + target : "Ext" + target;
+                    relations.merge(called, 1 + random.nextInt(3), Integer::sum);
+                }
+            }
+            graph.put("C" + i, relations);
+        }
+        return graph;
+    }
+
+    private static List<String> merges(Map<String, Map<String, Integer>> graph, int parallelism) {
+        HierarchicalClustering clustering = new HierarchicalClustering(new WeightedCouplingGraph(graph));
+        clustering.setTrace(false, null);
+        clustering.setParallelism(parallelism);
+        clustering.performClustering();
+        List<String> merges = new ArrayList<>();
+        for (String[] merge : clustering.getMerges()) {
+            merges.add(merge[0] + " <- " + merge[1]);
+        }
+        return merges;
+    }
+
+    // Parcours de référence : à chaque étape, toutes les paires ordonnées de clusters, dans l'ordre
+    // d'itération des clusters, couplage recalculé sur les classes membres dans les deux sens
+    private static List<String> exhaustiveMerges(Map<String, Map<String, Integer>> graph) {
+        WeightedCouplingGraph couplingGraph = new WeightedCouplingGraph(graph);
+        Map<String, Set<String>> clusters = new HashMap<>();
+        for (int classId = 0; classId < couplingGraph.sourceCount(); classId++) {
+            String className = couplingGraph.getClasses().nameOf(classId);
+            Set<String> cluster = new HashSet<>();
+            cluster.add(className);
+            clusters.put(className, cluster);
+        }
+
+        List<String> merges = new ArrayList<>();
+        while (clusters.size() > 1) {
+            String[] closestPair = null;
+            int maxCoupling = Integer.MIN_VALUE;
+            for (String clusterA : clusters.keySet()) {
+                for (String clusterB : clusters.keySet()) {
+                    if (!clusterA.equals(clusterB)) {
+                        int coupling = 0;
+                        for (String classA : clusters.get(clusterA)) {
+                            for (String classB : clusters.get(clusterB)) {
+                                coupling += graph.getOrDefault(classA, new HashMap<>()).getOrDefault(classB, 0);
+                                coupling += graph.getOrDefault(classB, new HashMap<>()).getOrDefault(classA, 0);
+                            }
+                        }
+                        if (coupling > maxCoupling) {
+                            maxCoupling = coupling;
+                            closestPair = new String[] { clusterA, clusterB };
+                        }
+                    }
+                }
+            }
+            Set<String> merged = new HashSet<>(clusters.get(closestPair[0]));
+            merged.addAll(clusters.remove(closestPair[1]));
+            clusters.put(closestPair[0], merged);
+            merges.add(closestPair[0] + " <- " + closestPair[1]);
+        }
+        return merges;
+    }
+}
@@ -0,0 +1,111 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+// Élagage (poids minimum, K arcs les plus lourds, regroupement par paquetage) et échappement des noms
+class GraphExporterTest {
+
+    @Test
+    void minWeightAndTopKPruneEdges() throws IOException {
+        GraphExporter exporter = new GraphExporter();
+        exporter.setMinWeight(2);
+        exporter.setTopK(2);
+        assertEquals("digraph G {\n"
+                + "    \"A\" -> \"D\" [label=\"5\"];\n"
+                + "    \"A\" -> \"B\" [label=\"3\"];\n"
+                + "    \"B\" -> \"C\" [label=\"2\"];\n"
+                + "}\n", export(exporter, graph(), GraphExporter.Format.DOT));
+    }
+
+    @Test
+    void prunedGraphKeepsSourcesAndReachedClasses() {
+        GraphExporter exporter = new GraphExporter();
+        exporter.setTopK(1);
+        WeightedCouplingGraph pruned = exporter.prune(graph());
+        assertEquals(2, pruned.sourceCount());
+        assertEquals(4, pruned.getClasses().size()); // A, B, puis D et C (B -> C) ; E n'est plus atteinte
+        assertEquals(5, pruned.weight(pruned.getClasses().idOf("A"), pruned.getClasses().idOf("D")));
+        assertEquals(-1, pruned.getClasses().idOf("E"));
+    }
+
+    @Test
+    void unprunedGraphIsNotCopied() {
+        WeightedCouplingGraph graph = graph();
+        assertSame(graph, new GraphExporter().prune(graph));
+    }
+
+    @Test
+    void collapsePackagesSumsCouplingsBetweenPackages() throws IOException {
+        Map<String, String> packages = new HashMap<>();
+        packages.put("A", "p.a");
+        packages.put("B", "p.b");
+        packages.put("C", "p.b");
+        packages.put("D", "p.a");
+        GraphExporter exporter = new GraphExporter();
+        exporter.setCollapsePackages(true);
+        exporter.setPackages(packages);
+        // A -> B (3) et A -> C (1) entre p.a et p.b ; A -> D et B -> C internes ; E sans paquetage connu
+        assertEquals("{\n"
+                + "  \"nodes\": [\n    \"p.a\",\n    \"p.b\",\n    \"(default)\"\n  ],\n"
+                + "  \"edges\": [\n"
+                + "    {\"source\": \"p.a\", \"target\": \"p.b\", \"weight\": 4},\n"
+                + "    {\"source\": \"p.a\", \"target\": \"(default)\", \"weight\": 2}\n"
+                + "  ]\n}\n", export(exporter, graph(), GraphExporter.Format.JSON));
+    }
+
+    @Test
+    void namesAreEscaped() throws IOException {
+        Map<String, Map<String, Integer>> couplingGraph = new LinkedHashMap<>();
+        Map<String, Integer> relations = new LinkedHashMap<>();
+        relations.put("Map<K, V>", 1);
+        relations.put("Tab\t\"x\\y\"", 2);
+        couplingGraph.put("A&B", relations);
+        WeightedCouplingGraph graph = new WeightedCouplingGraph(couplingGraph);
+        GraphExporter exporter = new GraphExporter();
+
+        assertEquals("digraph G {\n"
+                + "    \"A&B\" -> \"Map<K, V>\" [label=\"1\"];\n"
+                + "    \"A&B\" -> \"Tab\t\\\"x\\\\y\\\"\" [label=\"2\"];\n"
+                + "}\n", export(exporter, graph, GraphExporter.Format.DOT));
+        String graphMl = export(exporter, graph, GraphExporter.Format.GRAPHML);
+        assertContains(graphMl, "<node id=\"A&amp;B\"/>");
+        assertContains(graphMl, "<edge source=\"A&amp;B\" target=\"Map&lt;K, V&gt;\">");
+        assertContains(graphMl, "target=\"Tab\t&quot;x\\y&quot;\"");
+        String json = export(exporter, graph, GraphExporter.Format.JSON);
+        assertContains(json, "\"Tab\\u0009\\\"x\\\\y\\\"\"");
+    }
+
+    // A -> B (3), A -> C (1), A -> D (5), A -> E (2) ; B -> C (2)
+    private static WeightedCouplingGraph graph() {
+        Map<String, Map<String, Integer>> couplingGraph = new LinkedHashMap<>();
+        Map<String, Integer> a = new LinkedHashMap<>();
+        a.put("B", 3);
+        a.put("C", 1);
+        a.put("D", 5);
+        a.put("E", 2);
+        couplingGraph.put("A", a);
+        Map<String, Integer> b = new LinkedHashMap<>();
+        b.put("C", 2);
+        couplingGraph.put("B", b);
+        return new WeightedCouplingGraph(couplingGraph);
+    }
+
+    private static String export(GraphExporter exporter, WeightedCouplingGraph graph, GraphExporter.Format format)
+            throws IOException {
+        StringWriter writer = new StringWriter();
+        exporter.export(graph, writer, format);
+        return writer.toString();
+    }
+
+    private static void assertContains(String text, String expected) {
+        assertTrue(text.contains(expected), () -> expected + " absent de :\n" + text);
+    }
+}
@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Analyse incrémentale avec le cache persistant : seules les contributions des fichiers modifiés ou
+// supprimés changent, les autres sont relues depuis le cache
+class IncrementalCallGraphTest {
+    @TempDir
+    Path directory;
+
+    private File sourceRoot;
+    private File cacheFile;
+    private Map<String, List<String>> callGraph;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        sourceRoot = Files.createDirectory(directory.resolve("src")).toFile();
+        cacheFile = directory.resolve("callgraph.cache").toFile();
+        Parser.setEnvironment(new String[0], new String[] { sourceRoot.getPath() });
+        write("A.java", "public class A {\n    void f() { new B().g(); }\n}\n");
+        write("B.java", "public class B {\n    void g() { }\n    void h() { }\n}\n");
+    }
+
+    @Test
+    void unchangedFilesAreReadFromTheCache() throws Exception {
+        analyze();
+        CallGraphCache cache = new CallGraphCache(cacheFile);
+        cache.load();
+        assertNotNull(cache.lookup(new File(sourceRoot, "A.java")));
+        assertNotNull(cache.lookup(new File(sourceRoot, "B.java")));
+        assertEquals(Arrays.asList("B.g()"), callGraph.get("A.f()"));
+    }
+
+    @Test
+    void modifiedFileIsParsedAgain() throws Exception {
+        analyze();
+        write("A.java", "public class A {\n    void f() { new B().h(); new B().h(); }\n}\n");
+
+        CallGraphCache cache = new CallGraphCache(cacheFile);
+        cache.load();
+        assertNull(cache.lookup(new File(sourceRoot, "A.java")));
+        assertNotNull(cache.lookup(new File(sourceRoot, "B.java")));
+
+        analyze();
+        assertEquals(Arrays.asList("B.h()", "B.h()"), callGraph.get("A.f()"));
+    }
+
+    @Test
+    void deletedFileLeavesTheGraph() throws Exception {
+        write("C.java", "public class C {\n    void k() { new B().g(); }\n}\n");
+        analyze();
+        assertTrue(callGraph.containsKey("C.k()"));
+
+        Files.delete(sourceRoot.toPath().resolve("C.java"));
+        analyze();
+        assertFalse(callGraph.containsKey("C.k()"));
+        assertEquals(Arrays.asList("B.g()"), callGraph.get("A.f()"));
+    }
+
+    @Test
+    void unchangedDependentIsParsedAgain() throws Exception {
+        write("Base.java", "public class Base {\n    void g() { }\n}\n");
+        write("B.java", "public class B extends Base {\n}\n");
+        analyze();
+        assertEquals(Arrays.asList("Base.g()"), callGraph.get("A.f()"));
+
+        // A.java ne change pas, mais sa liaison vers g() désigne maintenant la redéfinition de B
+        write("B.java", "public class B extends Base {\n    void g() { }\n}\n");
+        analyze();
+        assertEquals(Arrays.asList("B.g()"), callGraph.get("A.f()"));
+    }
+
+    // Analyser l'arborescence avec le cache sur disque, comme --cache
+    private void analyze() throws Exception {
+        callGraph = new HashMap<>();
+        Parser.buildCallGraphIncremental(Parser.listJavaFilesForFolder(sourceRoot), callGraph, new HashMap<>(),
+                new CouplingLayers(), cacheFile, 1);
+    }
+
+    // Écrire un fichier source ; sa date est avancée pour qu'une réécriture rapide soit vue comme une modification
+    private void write(String name, String source) throws IOException {
+        File file = new File(sourceRoot, name);
+        long previous = file.exists() ? file.lastModified() : 0;
+        Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(Math.max(file.lastModified(), previous + 2000));
+    }
+}